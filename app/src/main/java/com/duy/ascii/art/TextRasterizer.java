@@ -0,0 +1,203 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Draws multi-line text art into a bitmap of any size without a view. Like
+ * {@link com.duy.ascii.art.image.converter.AsciiRenderer} it does not call Canvas.drawText for
+ * every character: each character is drawn once into a glyph atlas of monospace cells, and the
+ * output is filled a text row at a time by copying the cells of the atlas. The atlas keeps the
+ * anti-aliased coverage of each glyph, so the colours are blended into the output through a
+ * lookup table of 256 colours.
+ * <p>
+ * The atlas is kept between calls and rebuilt only when the text size changes. Glyphs wider
+ * than a cell are clipped to it.
+ */
+public class TextRasterizer {
+    private final Typeface typeface;
+    private final float textSize;
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private float atlasTextSize;
+    private int cellWidth;
+    private int cellHeight;
+    private int baseline;
+    /* coverage of every glyph, cellWidth * cellHeight bytes each */
+    private byte[] atlas = new byte[0];
+    private int glyphCount;
+    private final int[] asciiGlyphs = new int[128];
+    private final HashMap<Integer, Integer> glyphs = new HashMap<>();
+    /* used to draw a glyph before it is copied into the atlas */
+    private Bitmap cellBitmap;
+    private int[] cellPixels;
+
+    /**
+     * @param textSize size of the text in pixels for a scale of 1
+     */
+    public TextRasterizer(Typeface typeface, float textSize) {
+        this.typeface = typeface;
+        this.textSize = textSize;
+    }
+
+    /**
+     * @return size of the text in pixels for a scale of 1
+     */
+    public float getTextSize() {
+        return textSize;
+    }
+
+    /**
+     * @param scale output size relative to the text size of this rasterizer
+     * @return a new bitmap with the text drawn in the foreground colour on the background, with
+     * a margin of one cell width around it
+     */
+    public synchronized Bitmap createBitmap(CharSequence text, int foreground, int background, float scale) {
+        prepareAtlas(Math.max(1, textSize * scale));
+
+        String[] lines = text.toString().split("\r?\n", -1);
+        int rows = lines.length;
+        while (rows > 0 && lines[rows - 1].isEmpty()) rows--;
+        int columns = 0;
+        for (int i = 0; i < rows; i++) {
+            columns = Math.max(columns, lines[i].codePointCount(0, lines[i].length()));
+        }
+        int margin = cellWidth;
+        int width = columns * cellWidth + 2 * margin;
+        int height = rows * cellHeight + 2 * margin;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(background);
+
+        int[] blend = blendTable(foreground, background);
+        int rowWidth = columns * cellWidth;
+        if (rowWidth == 0) return bitmap;
+        int[] rowPixels = new int[rowWidth * cellHeight];
+        int[] rowGlyphs = new int[columns];
+        int cellSize = cellWidth * cellHeight;
+        for (int row = 0; row < rows; row++) {
+            String line = lines[row];
+            int count = 0;
+            for (int i = 0; i < line.length(); ) {
+                int codePoint = line.codePointAt(i);
+                i += Character.charCount(codePoint);
+                rowGlyphs[count++] = glyphOf(codePoint);
+            }
+            Arrays.fill(rowGlyphs, count, columns, -1);
+
+            int offset = 0;
+            for (int y = 0; y < cellHeight; y++) {
+                for (int column = 0; column < columns; column++) {
+                    int glyph = rowGlyphs[column];
+                    if (glyph < 0) {
+                        Arrays.fill(rowPixels, offset, offset + cellWidth, background);
+                        offset += cellWidth;
+                        continue;
+                    }
+                    int atlasOffset = glyph * cellSize + y * cellWidth;
+                    for (int x = 0; x < cellWidth; x++) {
+                        rowPixels[offset++] = blend[atlas[atlasOffset++] & 0xff];
+                    }
+                }
+            }
+            bitmap.setPixels(rowPixels, 0, rowWidth, margin, margin + row * cellHeight, rowWidth, cellHeight);
+        }
+        return bitmap;
+    }
+
+    private void prepareAtlas(float size) {
+        if (size == atlasTextSize) return;
+        atlasTextSize = size;
+        paint.setTypeface(typeface);
+        paint.setTextSize(size);
+        paint.setColor(Color.WHITE);
+        Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+        cellWidth = Math.max(1, (int) Math.ceil(paint.measureText("M")));
+        cellHeight = Math.max(1, metrics.descent - metrics.ascent);
+        baseline = -metrics.ascent;
+        cellBitmap = Bitmap.createBitmap(cellWidth, cellHeight, Bitmap.Config.ARGB_8888);
+        cellPixels = new int[cellWidth * cellHeight];
+        glyphCount = 0;
+        glyphs.clear();
+        Arrays.fill(asciiGlyphs, 0);
+    }
+
+    /**
+     * @return index of the glyph in the atlas, -1 for blank characters
+     */
+    private int glyphOf(int codePoint) {
+        if (codePoint < asciiGlyphs.length && asciiGlyphs[codePoint] != 0) {
+            return asciiGlyphs[codePoint] - 1;
+        }
+        if (codePoint >= asciiGlyphs.length) {
+            Integer glyph = glyphs.get(codePoint);
+            if (glyph != null) return glyph;
+        }
+        int glyph = Character.isWhitespace(codePoint) || Character.isISOControl(codePoint)
+                ? -1 : addGlyph(codePoint);
+        if (codePoint < asciiGlyphs.length) {
+            asciiGlyphs[codePoint] = glyph + 1;
+        } else {
+            glyphs.put(codePoint, glyph);
+        }
+        return glyph;
+    }
+
+    private int addGlyph(int codePoint) {
+        cellBitmap.eraseColor(Color.TRANSPARENT);
+        new Canvas(cellBitmap).drawText(new String(Character.toChars(codePoint)), 0, baseline, paint);
+        cellBitmap.getPixels(cellPixels, 0, cellWidth, 0, 0, cellWidth, cellHeight);
+
+        int cellSize = cellWidth * cellHeight;
+        if ((glyphCount + 1) * cellSize > atlas.length) {
+            atlas = Arrays.copyOf(atlas, Math.max(atlas.length * 2, 64 * cellSize));
+        }
+        int offset = glyphCount * cellSize;
+        for (int i = 0; i < cellSize; i++) {
+            atlas[offset + i] = (byte) (cellPixels[i] >>> 24);
+        }
+        return glyphCount++;
+    }
+
+    /**
+     * @return the colours between background (coverage 0) and foreground (coverage 255)
+     */
+    private static int[] blendTable(int foreground, int background) {
+        int[] table = new int[256];
+        for (int coverage = 0; coverage < 256; coverage++) {
+            int a = mix(Color.alpha(foreground), Color.alpha(background), coverage);
+            int r = mix(Color.red(foreground), Color.red(background), coverage);
+            int g = mix(Color.green(foreground), Color.green(background), coverage);
+            int b = mix(Color.blue(foreground), Color.blue(background), coverage);
+            table[coverage] = Color.argb(a, r, g, b);
+        }
+        return table;
+    }
+
+    private static int mix(int foreground, int background, int coverage) {
+        return (foreground * coverage + background * (255 - coverage) + 127) / 255;
+    }
+}
@@ -17,6 +17,8 @@
 
 package com.duy.ascii.art.asciiart;
 
+import android.content.res.AssetManager;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.Toolbar;
@@ -28,12 +30,22 @@ import com.duy.ascii.art.BaseActivity;
 import com.duy.ascii.art.R;
 import com.duy.ascii.art.asciiart.database.FirebaseHelper;
 import com.duy.ascii.art.asciiart.model.TextArt;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.TextArtCatalogue;
+import com.duy.ascii.art.search.NearDuplicateIndex;
+
+import java.io.IOException;
 
 /**
  * Created by Duy on 9/27/2017.
  */
 
 public class CreateTextArtActivity extends BaseActivity {
+    /**
+     * Near duplicate index of the bundled text art, built once in the background
+     */
+    @Nullable
+    private static NearDuplicateIndex sDuplicates;
     private Button mSubmit;
     private EditText mInput, mName;
     private FirebaseHelper mFirebaseHelper;
@@ -45,6 +57,9 @@ public class CreateTextArtActivity extends BaseActivity {
         setSupportActionBar((Toolbar) findViewById(R.id.toolbar));
         mFirebaseHelper = new FirebaseHelper(this);
         bindView();
+        if (sDuplicates == null) {
+            new LoadDuplicatesTask(getAssets()).execute();
+        }
     }
 
     private void bindView() {
@@ -65,8 +80,44 @@ public class CreateTextArtActivity extends BaseActivity {
             mInput.setError("Please enter text");
             return;
         }
+        // until the index is ready the art is submitted unchecked
+        if (sDuplicates != null && sDuplicates.findDuplicate(text) >= 0) {
+            mInput.setError(getString(R.string.text_art_already_exists));
+            return;
+        }
         String name = mName.getText().toString();
         mFirebaseHelper.add(new TextArt(text, name));
         finish();
     }
+
+    private static class LoadDuplicatesTask extends AsyncTask<Void, Void, NearDuplicateIndex> {
+        private final AssetManager mAssets;
+
+        LoadDuplicatesTask(AssetManager assets) {
+            this.mAssets = assets;
+        }
+
+        @Override
+        protected NearDuplicateIndex doInBackground(Void... params) {
+            try {
+                TextArtCatalogue catalogue = CatalogueAssets.getTextArt(mAssets);
+                NearDuplicateIndex index = new NearDuplicateIndex();
+                for (int i = 0; i < catalogue.size(); i++) {
+                    index.add(catalogue.get(i).content);
+                }
+                return index;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+
+        @Override
+        protected void onPostExecute(NearDuplicateIndex index) {
+            super.onPostExecute(index);
+            if (index != null) {
+                sDuplicates = index;
+            }
+        }
+    }
 }
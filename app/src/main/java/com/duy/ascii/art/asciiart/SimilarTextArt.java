@@ -0,0 +1,139 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.asciiart;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.graphics.Typeface;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.v7.app.AlertDialog;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.duy.ascii.art.R;
+import com.duy.ascii.art.clipboard.ClipboardManagerCompatFactory;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.TextArtCatalogue;
+import com.duy.ascii.art.search.ShapeIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the bundled text art that is shaped like a piece of art and lists it in a dialog
+ */
+public class SimilarTextArt extends AsyncTask<String, Void, ArrayList<String>> {
+    private static final int COUNT = 10;
+    private static ShapeIndex sIndex;
+
+    private final Context mContext;
+
+    public SimilarTextArt(Context context) {
+        this.mContext = context;
+    }
+
+    /**
+     * Builds the shape index of the catalogue once, the query of a search must hold the lock too
+     */
+    private static synchronized ShapeIndex getIndex(TextArtCatalogue catalogue) {
+        if (sIndex == null) {
+            List<byte[]> signatures = new ArrayList<>(catalogue.size());
+            for (int i = 0; i < catalogue.size(); i++) {
+                signatures.add(ShapeIndex.signature(catalogue.get(i).content));
+            }
+            sIndex = new ShapeIndex(signatures);
+        }
+        return sIndex;
+    }
+
+    @Override
+    protected ArrayList<String> doInBackground(String... params) {
+        String art = params[0];
+        ArrayList<String> similar = new ArrayList<>();
+        try {
+            TextArtCatalogue catalogue = CatalogueAssets.getTextArt(mContext.getAssets());
+            ShapeIndex index = getIndex(catalogue);
+            int[] nearest;
+            synchronized (SimilarTextArt.class) {
+                // one more, the art itself is in the catalogue unless it comes from firebase
+                nearest = index.nearest(ShapeIndex.signature(art), COUNT + 1, -1);
+            }
+            for (int i : nearest) {
+                String content = catalogue.get(i).content;
+                if (!content.equals(art) && similar.size() < COUNT) {
+                    similar.add(content);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return similar;
+    }
+
+    @Override
+    protected void onPostExecute(final ArrayList<String> similar) {
+        super.onPostExecute(similar);
+        if (isCancelled() || similar.isEmpty() || !isWindowAlive()) {
+            return;
+        }
+        ArrayAdapter<String> adapter = new ArrayAdapter<String>(mContext,
+                android.R.layout.simple_list_item_1, similar) {
+            @NonNull
+            @Override
+            public View getView(int position, View convertView, @NonNull ViewGroup parent) {
+                TextView view = (TextView) super.getView(position, convertView, parent);
+                view.setTypeface(Typeface.MONOSPACE);
+                return view;
+            }
+        };
+        AlertDialog.Builder builder = new AlertDialog.Builder(mContext);
+        builder.setTitle(R.string.similar_text_art);
+        builder.setAdapter(adapter, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                ClipboardManagerCompatFactory.getManager(mContext).setText(similar.get(which));
+                Toast.makeText(mContext, R.string.copied, Toast.LENGTH_SHORT).show();
+            }
+        });
+        builder.setNegativeButton(android.R.string.cancel, null);
+        builder.show();
+    }
+
+    /**
+     * The first search builds the index and may outlast the activity, whose window can not show
+     * a dialog any more
+     */
+    private boolean isWindowAlive() {
+        if (!(mContext instanceof Activity)) {
+            return true;
+        }
+        Activity activity = (Activity) mContext;
+        if (activity.isFinishing()) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1 || !activity.isDestroyed();
+    }
+}
@@ -75,6 +75,12 @@ public class TextArtAdapter extends RecyclerView.Adapter<TextArtAdapter.ViewHold
 
         holder.txtContent.setText(text);
         holder.txtName.setText(item.getName() + " " + item.getTime());
+        holder.txtContent.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                new SimilarTextArt(mContext).execute(text);
+            }
+        });
         holder.imgCopy.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -91,8 +97,9 @@ public class TextArtAdapter extends RecyclerView.Adapter<TextArtAdapter.ViewHold
         holder.imgFavorite.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                mDatabasePresenter.insert(new TextItem(text));
-                Toast.makeText(mContext, R.string.added_to_favorite, Toast.LENGTH_SHORT).show();
+                boolean added = mDatabasePresenter.insert(new TextItem(text));
+                Toast.makeText(mContext, added ? R.string.added_to_favorite : R.string.already_favorite,
+                        Toast.LENGTH_SHORT).show();
             }
         });
 
@@ -131,6 +138,15 @@ public class TextArtAdapter extends RecyclerView.Adapter<TextArtAdapter.ViewHold
         notifyItemInserted(mTextArts.size() - 1);
     }
 
+    /**
+     * Adds the entries to the end in their order, with one change notification
+     */
+    public void addPage(List<TextArt> page) {
+        int start = mTextArts.size();
+        mTextArts.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     public TextArt getLastItem() {
         return mTextArts.get(mTextArts.size() - 1);
     }
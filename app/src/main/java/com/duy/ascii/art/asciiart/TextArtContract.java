@@ -34,12 +34,17 @@ class TextArtContract {
 
         void setPresenter(Presenter presenter);
 
-        void append(TextArt value);
+        /**
+         * Adds a page of entries to the end of the list
+         */
+        void append(ArrayList<TextArt> page);
     }
 
     public interface Presenter {
         void onStart();
 
         void onStop();
+
+        void onVisibleRangeChanged(int first, int last);
     }
 }
@@ -61,13 +61,21 @@ public class TextArtFragment extends SimpleFragment implements TextArtContract.V
 
         mRecyclerView = (RecyclerView) findViewById(R.id.recycle_view);
         mRecyclerView.setHasFixedSize(true);
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        mRecyclerView.setLayoutManager(layoutManager);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                mPresenter.onVisibleRangeChanged(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
         mRecyclerView.addItemDecoration(new DividerItemDecoration(getContext(), DividerItemDecoration.VERTICAL));
         mAdapter = new TextArtAdapter(getContext());
         mRecyclerView.setAdapter(mAdapter);
 
         mProgressBar = (ContentLoadingProgressBar) findViewById(R.id.progress_bar);
-        mPresenter = new TextArtPresenter(getContext(), this);
+        mPresenter = new TextArtPresenter(getContext().getAssets(), this);
     }
 
     @Override
@@ -92,8 +100,8 @@ public class TextArtFragment extends SimpleFragment implements TextArtContract.V
     }
 
     @Override
-    public void append(TextArt value) {
-        mAdapter.add(value);
+    public void append(ArrayList<TextArt> page) {
+        mAdapter.addPage(page);
     }
 
     @Override
@@ -17,126 +17,128 @@
 
 package com.duy.ascii.art.asciiart;
 
-import android.content.Context;
+import android.content.res.AssetManager;
 import android.os.AsyncTask;
 import android.support.annotation.Nullable;
 
 import com.duy.ascii.art.asciiart.model.TextArt;
-
-import org.apache.commons.io.IOUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.TextArtCatalogue;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 
 /**
  * Created by Duy on 03-Jul-17.
+ * <p>
+ * Delivers the bundled text art a page at a time: the next page is decoded in the background
+ * when the list is scrolled close to its end, and the view gets the whole page at once.
  */
 class TextArtPresenter implements TextArtContract.Presenter {
-    private final Context mContext;
+    /**
+     * Entries decoded and added to the list at a time, a little more than a screen
+     */
+    private static final int PAGE_SIZE = 20;
+    /**
+     * The next page is loaded when the last visible entry is this close to the end of the list
+     */
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private final AssetManager mAssets;
     private final TextArtContract.View mView;
-    private LoadDataTask mLoadDataTask;
+    @Nullable
+    private TextArtCatalogue mCatalogue;
+    /* entries given to the view */
+    private int mLoaded = 0;
+    @Nullable
+    private LoadPageTask mLoadPageTask;
 
-    TextArtPresenter(Context context, TextArtContract.View view) {
-        this.mContext = context;
+    TextArtPresenter(AssetManager assets, TextArtContract.View view) {
+        this.mAssets = assets;
         this.mView = view;
     }
 
     @Override
     public void onStart() {
-        mView.showProgress();
-        if (mLoadDataTask != null) {
-            mLoadDataTask.cancel(true);
-        }
-        LoadDataTask.Callback callback = new LoadDataTask.Callback() {
-            @Override
-            public void onResult(ArrayList<TextArt> list) {
-                mView.hideProgress();
-            }
-        };
-        mLoadDataTask = new LoadDataTask(callback, mView);
-        try {
-            mLoadDataTask.execute(mContext.getAssets().open("new_ascii_art.json"));
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (mLoaded == 0) {
+            mView.showProgress();
+            loadNextPage();
         }
     }
 
     @Override
     public void onStop() {
-        if (mLoadDataTask != null) {
-            mLoadDataTask.cancel(true);
+        if (mLoadPageTask != null) {
+            mLoadPageTask.cancel(true);
+            mLoadPageTask = null;
+        }
+    }
+
+    @Override
+    public void onVisibleRangeChanged(int first, int last) {
+        if (last >= mLoaded - PREFETCH_DISTANCE) {
+            loadNextPage();
         }
     }
 
-    private static class LoadDataTask extends AsyncTask<InputStream, TextArt, ArrayList<TextArt>> {
-        private Callback mCallback;
-        private TextArtContract.View mView;
+    private void loadNextPage() {
+        if (mLoadPageTask != null) return;
+        if (mCatalogue != null && mLoaded >= mCatalogue.size()) return;
+        mLoadPageTask = new LoadPageTask(this, mAssets, mCatalogue, mLoaded);
+        mLoadPageTask.execute();
+    }
 
-        LoadDataTask(Callback callback, TextArtContract.View view) {
-            this.mCallback = callback;
-            this.mView = view;
+    private void onPageLoaded(TextArtCatalogue catalogue, ArrayList<TextArt> page) {
+        mLoadPageTask = null;
+        mCatalogue = catalogue;
+        mLoaded += page.size();
+        mView.hideProgress();
+        mView.append(page);
+    }
+
+    private static class LoadPageTask extends AsyncTask<Void, Void, ArrayList<TextArt>> {
+        private final TextArtPresenter mPresenter;
+        private final AssetManager mAssets;
+        private final int mStart;
+        @Nullable
+        private TextArtCatalogue mCatalogue;
+
+        LoadPageTask(TextArtPresenter presenter, AssetManager assets,
+                     @Nullable TextArtCatalogue catalogue, int start) {
+            this.mPresenter = presenter;
+            this.mAssets = assets;
+            this.mCatalogue = catalogue;
+            this.mStart = start;
         }
 
         @Override
-        protected ArrayList<TextArt> doInBackground(InputStream... params) {
+        protected ArrayList<TextArt> doInBackground(Void... params) {
             try {
-                InputStream in = params[0];
-                String content = IOUtils.toString(in);
-                JSONObject jsonObject = new JSONObject(content);
-                JSONArray array = jsonObject.getJSONArray(TextArt.KEY_ROOT);
-                for (int i = 0; i < array.length(); i++) {
-                    JSONObject item = array.getJSONObject(i);
-                    TextArt textArt = new TextArt();
-                    if (item.has("category")) {
-                        textArt.setCategory(item.getInt("category"));
-                    }
-                    if (item.has("time")) {
-                        textArt.setTime(item.getLong("time"));
-                    }
-                    if (item.has("name")) {
-                        textArt.setName(item.getString("name"));
-                    }
-                    textArt.setContent(item.getString("content"));
-                    if (item.has("star")) {
-                        textArt.setStar(item.getInt("star"));
-                    }
-                    publishProgress(textArt);
+                if (mCatalogue == null) {
+                    // reads the header only, the entries stay in the mapped pack
+                    mCatalogue = CatalogueAssets.getTextArt(mAssets);
+                }
+                ArrayList<TextArt> page = new ArrayList<>(PAGE_SIZE);
+                for (TextArtCatalogue.Entry entry : mCatalogue.getPage(mStart, PAGE_SIZE)) {
+                    page.add(new TextArt(entry.category, entry.time, entry.content, entry.name, entry.star));
                 }
-//                Matcher matcher = FileUtil.PATTERN_SPLIT.matcher(string);
-//                ArrayList<T> result = new ArrayList<>();
-//                while (matcher.find() && !isCancelled()) {
-//                    publishProgress(matcher.group(2));
-//                }
-//                return result;
-                return null;
+                return page;
             } catch (IOException e) {
                 e.printStackTrace();
-            } catch (JSONException e) {
-                e.printStackTrace();
             }
             return null;
         }
 
         @Override
-        protected void onProgressUpdate(TextArt... values) {
-            super.onProgressUpdate(values);
-            mView.append(values[0]);
-        }
-
-        @Override
-        protected void onPostExecute(ArrayList<TextArt> list) {
-            super.onPostExecute(list);
-            if (!isCancelled()) {
-                mCallback.onResult(list);
+        protected void onPostExecute(@Nullable ArrayList<TextArt> page) {
+            super.onPostExecute(page);
+            if (isCancelled()) return;
+            if (page == null) {
+                mPresenter.mLoadPageTask = null;
+                mPresenter.mView.hideProgress();
+                return;
             }
-        }
-
-        interface Callback {
-            void onResult(@Nullable ArrayList<TextArt> list);
+            mPresenter.onPageLoaded(mCatalogue, page);
         }
     }
 }
@@ -122,8 +122,9 @@ class BigFontAdapter extends RecyclerView.Adapter<BigFontAdapter.ViewHolder> {
         holder.imgFavorite.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                mDatabasePresenter.insert(new TextItem(text));
-                Toast.makeText(context, R.string.added_to_favorite, Toast.LENGTH_SHORT).show();
+                boolean added = mDatabasePresenter.insert(new TextItem(text));
+                Toast.makeText(context, added ? R.string.added_to_favorite : R.string.already_favorite,
+                        Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -18,7 +18,6 @@
 package com.duy.ascii.art.bigtext;
 
 import android.content.SharedPreferences;
-import android.content.res.AssetManager;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.annotation.NonNull;
@@ -37,7 +36,6 @@ import android.widget.EditText;
 
 import com.duy.ascii.art.R;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 
 
@@ -148,18 +146,7 @@ public class BigFontFragment extends Fragment implements BigFontContract.View {
 
     private void createPresenter() {
         if (mPresenter != null) return;
-        try {
-            AssetManager assets = getContext().getAssets();
-            String[] names = assets.list("bigtext_json");
-            InputStream[] inputStreams = new InputStream[names.length];
-            for (int i = 0; i < names.length; i++) {
-                String name = names[i];
-                inputStreams[i] = assets.open("bigtext_json/" + name);
-            }
-            mPresenter = new BigFontPresenter(inputStreams, this);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        mPresenter = new BigFontPresenter(getContext().getAssets(), this);
     }
 
 
@@ -17,12 +17,23 @@
 
 package com.duy.ascii.art.bigtext;
 
+import android.content.res.AssetManager;
 import android.os.AsyncTask;
 import android.os.Handler;
 import android.support.annotation.Nullable;
 
+import com.duy.ascii.art.database.AssetResourceLoader;
+
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -30,15 +41,42 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 
 public class BigFontPresenter implements BigFontContract.Presenter {
-    private BigFontGenerator cache = new BigFontGenerator();
-    private InputStream[] inputStreams;
+    private static final int RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    /**
+     * Fonts of the process, a font stays parsed when the fragment is recreated
+     */
+    @Nullable
+    private static BigFontGenerator sFonts;
+
+    /**
+     * Rendering of the last text in every font, typing only renders the edit
+     */
+    private BigFontGenerator.Line[] lines;
+    /**
+     * Loads the fonts that are not parsed yet and renders the fonts in parallel, the threads
+     * die when idle
+     */
+    private final ThreadPoolExecutor renderPool;
+    private AssetManager assetManager;
     private BigFontContract.View view;
     private ProcessData process = new ProcessData();
     private Handler handler = new Handler();
 
-    public BigFontPresenter(InputStream[] inputStream, BigFontContract.View view) {
-        this.inputStreams = inputStream;
+    public BigFontPresenter(AssetManager assetManager, BigFontContract.View view) {
+        this.assetManager = assetManager;
         this.view = view;
+        this.renderPool = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 2, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        this.renderPool.allowCoreThreadTimeOut(true);
+    }
+
+    private static synchronized BigFontGenerator getFonts(AssetManager assetManager) throws IOException {
+        if (sFonts == null) {
+            BigFontGenerator fonts = new BigFontGenerator();
+            fonts.load(new AssetResourceLoader(assetManager), "bigtext_json");
+            sFonts = fonts;
+        }
+        return sFonts;
     }
 
     @Override
@@ -54,6 +92,16 @@ public class BigFontPresenter implements BigFontContract.Presenter {
         process.cancel();
     }
 
+    private synchronized BigFontGenerator.Line getLine(BigFontGenerator fonts, int position) {
+        if (lines == null) {
+            lines = new BigFontGenerator.Line[fonts.getSize()];
+        }
+        if (lines[position] == null) {
+            lines[position] = fonts.newLine(position);
+        }
+        return lines[position];
+    }
+
     private class TaskGenerateData extends AsyncTask<String, String, Void> {
         private float maxProgress = 100;
         private AtomicInteger count = new AtomicInteger(0);
@@ -75,29 +123,81 @@ public class BigFontPresenter implements BigFontContract.Presenter {
 
         @Override
         protected Void doInBackground(String... params) {
-            if (!cache.isLoaded()) {
-                cache.load(inputStreams);
-                for (InputStream inputStream : inputStreams) {
+            final String text = params[0];
+            if (text.isEmpty()) return null;
+            final BigFontGenerator fonts;
+            try {
+                fonts = getFonts(assetManager);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+
+            // fonts that are not parsed yet load in parallel with the rendering of the others,
+            // the loaded fonts without a glyph for a character of the text are not tried
+            BitSet candidates = fonts.getFonts(text);
+            for (int i = 0; i < fonts.getSize(); i++) {
+                if (!fonts.isLoaded(i)) candidates.set(i);
+            }
+            count.set(candidates.cardinality());
+
+            List<FutureTask<String>> results = new ArrayList<>();
+            try {
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    final int position = i;
+                    FutureTask<String> result = new FutureTask<>(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            fonts.load(position);
+                            if (isCancelled() || !fonts.getFonts(text).get(position)) return null;
+                            return render(fonts, position, text);
+                        }
+                    });
+                    results.add(result);
+                    renderPool.execute(result);
+                }
+                // publish in font order, each result as soon as all fonts before it are done
+                for (int i = 0; i < results.size() && !isCancelled(); i++) {
+                    String result = null;
                     try {
-                        inputStream.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
+                        result = results.get(i).get();
+                    } catch (ExecutionException e) {
+                        e.getCause().printStackTrace();
+                    } finally {
+                        // a font without a result is not counted in the progress
+                        if (result == null) count.decrementAndGet();
                     }
+                    if (result != null) publishProgress(result);
                 }
-            }
-            int size = cache.getSize();
-
-            for (int i = 0; i < size && !isCancelled(); i++) {
-                try {
-                    String convert = cache.convert(params[0], i);
-                    publishProgress(convert);
-                } catch (Exception e) {
-                    e.printStackTrace();
+            } catch (InterruptedException e) {
+                // cancelled while fonts were loading
+            } finally {
+                for (FutureTask<String> result : results) {
+                    // a font that is being parsed finishes, it is kept for the next text
+                    result.cancel(false);
                 }
             }
             return null;
         }
 
+        @Nullable
+        private String render(BigFontGenerator fonts, int position, String text) {
+            try {
+                if (text.indexOf('\n') >= 0) {
+                    // a line follows the edits of one line of text
+                    return fonts.convert(text, position);
+                }
+                BigFontGenerator.Line line = getLine(fonts, position);
+                synchronized (line) {
+                    line.setText(text);
+                    return line.toString();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
         @Override
         protected void onProgressUpdate(String... values) {
             super.onProgressUpdate(values);
@@ -124,6 +224,8 @@ public class BigFontPresenter implements BigFontContract.Presenter {
 
         @Override
         public void run() {
+            // the results of the previous text are not needed anymore
+            cancel();
             taskGenerateData = new TaskGenerateData(view);
             taskGenerateData.execute(input);
         }
@@ -0,0 +1,45 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import android.content.res.AssetManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves resources from the application assets.
+ */
+public class AssetResourceLoader implements ResourceLoader {
+    private final AssetManager assetManager;
+
+    public AssetResourceLoader(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return assetManager.open(path);
+    }
+
+    @Override
+    public String[] list(String path) throws IOException {
+        return assetManager.list(path);
+    }
+}
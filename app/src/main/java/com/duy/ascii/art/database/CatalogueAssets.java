@@ -0,0 +1,95 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Opens the catalogues of the assets once for the whole app, and the packs generated at build
+ * time
+ */
+public class CatalogueAssets {
+    /**
+     * Generated at build time from assets/emoji and assets/emoticons, which are not in the apk,
+     * see CataloguePack
+     */
+    private static final String CATALOGUE_PACK = "catalogue.pack";
+    /**
+     * Generated at build time from the text art json, which is not in the apk, see
+     * TextArtCatalogue
+     */
+    private static final String TEXT_ART_PACK = "text_art.pack";
+    private static CataloguePack sPack;
+    private static TextArtCatalogue sTextArt;
+
+    /**
+     * Reads the table of contents of the emoji and emoticon pack, call it in the background
+     */
+    public static synchronized CataloguePack get(AssetManager assets) throws IOException {
+        if (sPack == null) {
+            sPack = new CataloguePack(openPack(assets, CATALOGUE_PACK));
+        }
+        return sPack;
+    }
+
+    /**
+     * Opens the bundled text art, call it in the background
+     */
+    public static synchronized TextArtCatalogue getTextArt(AssetManager assets) throws IOException {
+        if (sTextArt == null) {
+            sTextArt = new TextArtCatalogue(openPack(assets, TEXT_ART_PACK));
+        }
+        return sTextArt;
+    }
+
+    /**
+     * @return the pack, memory mapped unless it is compressed in the apk
+     */
+    public static ByteBuffer openPack(AssetManager assets, String name) throws IOException {
+        AssetFileDescriptor descriptor;
+        try {
+            descriptor = assets.openFd(name);
+        } catch (FileNotFoundException e) {
+            // compressed in the apk, can not be mapped
+            InputStream in = assets.open(name);
+            try {
+                return ByteBuffer.wrap(IOUtils.toByteArray(in));
+            } finally {
+                in.close();
+            }
+        }
+        FileInputStream in = descriptor.createInputStream();
+        try {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength());
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -43,8 +43,6 @@ import com.duy.ascii.art.utils.ShareUtil;
 import com.duy.ascii.art.utils.TooltipUtil;
 import com.duy.ascii.art.view.ViewPager;
 
-import org.json.JSONException;
-
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -107,8 +105,9 @@ public class EmojiCategoriesFragment extends SimpleFragment implements OnPageCha
                 break;
             case R.id.img_favorite:
                 if (!mEditInput.getText().toString().isEmpty()) {
-                    mDatabasePresenter.insert(new TextItem(mEditInput.getText().toString()));
-                    Toast.makeText(getContext(), R.string.added_to_favorite, Toast.LENGTH_SHORT).show();
+                    boolean added = mDatabasePresenter.insert(new TextItem(mEditInput.getText().toString()));
+                    Toast.makeText(getContext(), added ? R.string.added_to_favorite : R.string.already_favorite,
+                            Toast.LENGTH_SHORT).show();
                 }
                 break;
         }
@@ -186,8 +185,6 @@ public class EmojiCategoriesFragment extends SimpleFragment implements OnPageCha
                 return EmojiReader.readData(getContext());
             } catch (IOException e) {
                 e.printStackTrace();
-            } catch (JSONException e) {
-                e.printStackTrace();
             }
             return new ArrayList<>();
         }
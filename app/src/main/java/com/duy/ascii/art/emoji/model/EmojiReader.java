@@ -18,19 +18,18 @@
 package com.duy.ascii.art.emoji.model;
 
 import android.content.Context;
-import android.content.res.AssetManager;
-import android.graphics.Paint;
+import android.os.AsyncTask;
 import android.os.Build;
 
-import com.duy.ascii.art.database.JsonBridge;
+import com.duy.ascii.art.BuildConfig;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.CataloguePack;
 import com.duy.common.utils.DLog;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * Created by Duy on 1/11/2018.
@@ -38,35 +37,59 @@ import java.util.ArrayList;
 
 public class EmojiReader {
     private static final String TAG = "EmojiReader";
+    private static final String GLYPH_SUPPORT_FILE = "emoji_glyph_support";
 
-    public static ArrayList<EmojiCategory> readData(Context context) throws IOException, JSONException {
+    public static ArrayList<EmojiCategory> readData(Context context) throws IOException {
         if (DLog.DEBUG) DLog.d(TAG, "readData() called");
-        //the result
-        ArrayList<EmojiCategory> emojiList = new ArrayList<>();
-
-        AssetManager assets = context.getAssets();
-        String[] fileNames = assets.list("emoji");
+        //every emoji of the assets, in the order of the files
+        ArrayList<EmojiCategory> allEmoji = new ArrayList<>();
+        final ArrayList<String> chars = new ArrayList<>();
 
-        Paint paint = new Paint();
-
-        for (String fileName : fileNames) {
-            JSONObject jsonObject = JsonBridge.getJson(assets, "emoji/" + fileName);
-            String title = jsonObject.getString(EmojiCategory.TITLE);
-            String desc = jsonObject.getString(EmojiCategory.DESCRIPTION);
-            EmojiCategory category = new EmojiCategory(title, desc);
+        // the glyph support bits cover every emoji, so all categories of the pack are decoded
+        CataloguePack pack = CatalogueAssets.get(context.getAssets());
+        for (CataloguePack.Category packed : pack.getCategories(CataloguePack.EMOJI)) {
+            EmojiCategory category = new EmojiCategory(packed.getTitle(), packed.getDescription());
+            for (int i = 0; i < packed.size(); i++) {
+                String emojiChar = packed.get(i, CataloguePack.EMOJI_CHARACTER);
+                category.add(new EmojiItem(emojiChar, packed.get(i, CataloguePack.EMOJI_DESCRIPTION)));
+                chars.add(emojiChar);
+            }
+            allEmoji.add(category);
+        }
 
-            JSONArray jsonArray = jsonObject.getJSONArray(EmojiCategory.DATA);
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject emoji = jsonArray.getJSONObject(i);
-                String emojiChar = emoji.getString(EmojiItem.CHARACTER);
-                String emojiDesc = emoji.getString(EmojiItem.DESCRIPTION);
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    if (paint.hasGlyph(emojiChar)) {
-                        category.add(new EmojiItem(emojiChar, emojiDesc));
+        BitSet supported;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // probing thousands of glyphs is slow and the answer only changes with the OS fonts
+            final GlyphSupportCache cache = new GlyphSupportCache(
+                    new File(context.getCacheDir(), GLYPH_SUPPORT_FILE),
+                    Build.FINGERPRINT, String.valueOf(BuildConfig.VERSION_CODE));
+            supported = cache.read(chars.size());
+            if (supported == null) {
+                supported = GlyphSupportCache.probe(chars);
+                cache.write(chars.size(), supported);
+            } else if (cache.isStale()) {
+                // after an OS update the old answer is shown and the new one is used next time
+                AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        cache.write(chars.size(), GlyphSupportCache.probe(chars));
                     }
-                } else if (emojiChar.length() <= 3) {
-                    category.add(new EmojiItem(emojiChar, emojiDesc));
-                }
+                });
+            }
+        } else {
+            supported = new BitSet(chars.size());
+            for (int i = 0; i < chars.size(); i++) {
+                if (chars.get(i).length() <= 3) supported.set(i);
+            }
+        }
+
+        //the result
+        ArrayList<EmojiCategory> emojiList = new ArrayList<>();
+        int index = 0;
+        for (EmojiCategory all : allEmoji) {
+            EmojiCategory category = new EmojiCategory(all.getName(), all.getDescription());
+            for (EmojiItem item : all.getItems()) {
+                if (supported.get(index++)) category.add(item);
             }
             emojiList.add(category);
         }
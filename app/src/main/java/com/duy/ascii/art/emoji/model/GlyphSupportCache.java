@@ -0,0 +1,147 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.emoji.model;
+
+import android.annotation.TargetApi;
+import android.graphics.Paint;
+import android.os.Build;
+import android.support.annotation.Nullable;
+
+import com.duy.common.utils.DLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Which emoji the system fonts can draw, saved so the glyphs are probed once per OS build
+ * instead of on every start. The file holds what the emoji were probed for (the build
+ * fingerprint and the version of the assets), the number of emoji and one bit per emoji.
+ */
+public class GlyphSupportCache {
+    private static final String TAG = "GlyphSupportCache";
+    private static final int VERSION = 2;
+
+    private final File file;
+    private final String osBuild;
+    private final String assets;
+    private boolean stale;
+
+    /**
+     * @param osBuild fingerprint of the OS build, the fonts of the system
+     * @param assets  version of the emoji assets, the order of the bits
+     */
+    public GlyphSupportCache(File file, String osBuild, String assets) {
+        this.file = file;
+        this.osBuild = osBuild;
+        this.assets = assets;
+    }
+
+    /**
+     * @return the saved support of count emoji, null if there is none. The bits probed on
+     * another OS build are returned too, see {@link #isStale()}; bits saved for other assets
+     * are not, they may belong to other emoji
+     */
+    @Nullable
+    public BitSet read(int count) {
+        if (!file.exists()) return null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != VERSION) return null;
+                String savedOsBuild = in.readUTF();
+                if (!assets.equals(in.readUTF()) || in.readInt() != count) return null;
+                byte[] bits = new byte[(count + 7) / 8];
+                in.readFully(bits);
+                BitSet supported = new BitSet(count);
+                for (int i = 0; i < count; i++) {
+                    if ((bits[i >> 3] & (1 << (i & 7))) != 0) supported.set(i);
+                }
+                stale = !osBuild.equals(savedOsBuild);
+                return supported;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the last {@link #read(int)} returned bits that were probed on another OS
+     * build
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void write(int count, BitSet supported) {
+        byte[] bits = new byte[(count + 7) / 8];
+        for (int i = supported.nextSetBit(0); i >= 0 && i < count; i = supported.nextSetBit(i + 1)) {
+            bits[i >> 3] |= 1 << (i & 7);
+        }
+        // written next to the cache and renamed, a reader never sees half a file
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(VERSION);
+                out.writeUTF(osBuild);
+                out.writeUTF(assets);
+                out.writeInt(count);
+                out.write(bits);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Can not rename " + temp + " to " + file);
+            }
+            stale = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+        }
+    }
+
+    /**
+     * @return the emoji the system fonts have a glyph for
+     */
+    @TargetApi(Build.VERSION_CODES.M)
+    public static BitSet probe(List<String> emoji) {
+        long time = System.currentTimeMillis();
+        Paint paint = new Paint();
+        BitSet supported = new BitSet(emoji.size());
+        for (int i = 0; i < emoji.size(); i++) {
+            if (paint.hasGlyph(emoji.get(i))) supported.set(i);
+        }
+        if (DLog.DEBUG) {
+            DLog.d(TAG, "probe: " + emoji.size() + " emoji in " + (System.currentTimeMillis() - time) + "ms");
+        }
+        return supported;
+    }
+}
@@ -83,8 +83,9 @@ class EmoticonsAdapter extends RecyclerView.Adapter<EmoticonsAdapter.ViewHolder>
         holder.imgFavorite.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                mDatabasePresenter.insert(new TextItem(text));
-                Toast.makeText(context, R.string.added_to_favorite, Toast.LENGTH_SHORT).show();
+                boolean added = mDatabasePresenter.insert(new TextItem(text));
+                Toast.makeText(context, added ? R.string.added_to_favorite : R.string.already_favorite,
+                        Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -18,8 +18,8 @@
 package com.duy.ascii.art.emoticons;
 
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.os.AsyncTask;
+import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.widget.ContentLoadingProgressBar;
@@ -27,25 +27,31 @@ import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
 import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuInflater;
 import android.view.View;
 
 import com.duy.ascii.art.R;
 import com.duy.ascii.art.SimpleFragment;
-import com.duy.ascii.art.database.JsonBridge;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.CataloguePack;
+import com.duy.ascii.art.emoji.model.GlyphSupportCache;
 import com.duy.ascii.art.emoticons.model.EmoticonCategory;
+import com.duy.ascii.art.search.CatalogueSearch;
 import com.duy.ascii.art.utils.TooltipUtil;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * Created by Duy on 9/27/2017.
  */
 
-public class EmoticonsFragment extends SimpleFragment implements EmoticonContract.View, EmoticonCategoriesAdapter.OnCategoryClickListener {
+public class EmoticonsFragment extends SimpleFragment implements EmoticonContract.View,
+        EmoticonCategoriesAdapter.OnCategoryClickListener, SearchView.OnQueryTextListener {
+    private static final int MAX_EMOJI_RESULTS = 60;
     protected EmoticonContract.Presenter mPresenter;
     protected RecyclerView mCategoriesView, mContentView;
     protected EmoticonCategoriesAdapter mCategoriesAdapter;
@@ -53,6 +59,16 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
     protected ContentLoadingProgressBar mProgressBar;
     private LoadDataTask mLoadDataTask;
     private Toolbar mToolbar;
+    private ArrayList<EmoticonCategory> mCategories = new ArrayList<>();
+    @Nullable
+    private CatalogueSearch mSearch;
+    @Nullable
+    private LoadSearchTask mLoadSearchTask;
+    @Nullable
+    private SearchEmojiTask mSearchEmojiTask;
+    private String mQuery = "";
+    @Nullable
+    private EmoticonCategory mSelectedCategory;
 
     public static EmoticonsFragment newInstance() {
 
@@ -71,6 +87,7 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
     @Override
     public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        setHasOptionsMenu(true);
         mToolbar = getActivity().findViewById(R.id.toolbar);
         mCategoriesView = (RecyclerView) findViewById(R.id.recycle_view_header);
         mCategoriesView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -104,7 +121,82 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
 
     @Override
     public void display(ArrayList<EmoticonCategory> list) {
-        mCategoriesAdapter.setData(list);
+        mCategories = list;
+        if (mQuery.isEmpty()) {
+            mCategoriesAdapter.setData(list);
+        } else {
+            onQueryTextChange(mQuery);
+        }
+    }
+
+    @Override
+    public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
+        inflater.inflate(R.menu.menu_emoticons, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setOnQueryTextListener(this);
+        super.onCreateOptionsMenu(menu, inflater);
+    }
+
+    @Override
+    public boolean onQueryTextSubmit(String query) {
+        return onQueryTextChange(query);
+    }
+
+    /**
+     * Shows the categories whose title or description matches the query, and the matching
+     * emoji as the content. The search index is opened in the background on the first query.
+     */
+    @Override
+    public boolean onQueryTextChange(String query) {
+        mQuery = query.trim();
+        if (mSearchEmojiTask != null) {
+            mSearchEmojiTask.cancel(true);
+            mSearchEmojiTask = null;
+        }
+        if (mQuery.isEmpty()) {
+            mCategoriesAdapter.setData(mCategories);
+            // bring back what was shown before the search
+            if (mSelectedCategory != null) {
+                showCategory(mSelectedCategory);
+            } else {
+                mToolbar.setSubtitle(R.string.emoticons);
+                mContentAdapter.clear();
+            }
+            return true;
+        }
+        if (mSearch == null) {
+            if (mLoadSearchTask == null) {
+                mLoadSearchTask = new LoadSearchTask(getContext(), this);
+                mLoadSearchTask.execute();
+            }
+            return true;
+        }
+        ArrayList<EmoticonCategory> categories = new ArrayList<>();
+        for (int position : mSearch.searchEmoticonCategories(mQuery)) {
+            if (position < mCategories.size()) categories.add(mCategories.get(position));
+        }
+        mCategoriesAdapter.setData(categories);
+
+        mSearchEmojiTask = new SearchEmojiTask(mSearch, mQuery, this);
+        mSearchEmojiTask.execute();
+        return true;
+    }
+
+    private void onEmojiFound(String query, ArrayList<String> emoji) {
+        mSearchEmojiTask = null;
+        if (!query.equals(mQuery)) return;
+        mToolbar.setSubtitle(R.string.search_results);
+        mContentAdapter.clear();
+        mContentAdapter.addAll(emoji);
+    }
+
+    private void onSearchLoaded(@Nullable CatalogueSearch search) {
+        // after a failure the next query loads the index again
+        mLoadSearchTask = null;
+        mSearch = search;
+        if (search != null && !mQuery.isEmpty()) {
+            onQueryTextChange(mQuery);
+        }
     }
 
     @Override
@@ -114,6 +206,11 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
 
     @Override
     public void onHeaderClick(EmoticonCategory category) {
+        mSelectedCategory = category;
+        showCategory(category);
+    }
+
+    private void showCategory(EmoticonCategory category) {
         mToolbar.setSubtitle(category.getTitle());
         mContentAdapter.clear();
         mContentAdapter.addAll(category.getData());
@@ -127,9 +224,75 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
     @Override
     public void onDestroyView() {
         if (mLoadDataTask != null) mLoadDataTask.cancel(true);
+        if (mLoadSearchTask != null) mLoadSearchTask.cancel(true);
+        if (mSearchEmojiTask != null) mSearchEmojiTask.cancel(true);
         super.onDestroyView();
     }
 
+    /**
+     * Searches the emoji and, as in the emoji picker, hides the ones the system fonts can not
+     * draw. Probing the glyphs is slow, so it does not run on the UI thread.
+     */
+    private static class SearchEmojiTask extends AsyncTask<Void, Void, ArrayList<String>> {
+        private CatalogueSearch search;
+        private String query;
+        private EmoticonsFragment fragment;
+
+        SearchEmojiTask(CatalogueSearch search, String query, EmoticonsFragment fragment) {
+            this.search = search;
+            this.query = query;
+            this.fragment = fragment;
+        }
+
+        @Override
+        protected ArrayList<String> doInBackground(Void... params) {
+            ArrayList<String> emoji = search.searchEmoji(query, MAX_EMOJI_RESULTS);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                BitSet supported = GlyphSupportCache.probe(emoji);
+                ArrayList<String> drawable = new ArrayList<>(supported.cardinality());
+                for (int i = supported.nextSetBit(0); i >= 0; i = supported.nextSetBit(i + 1)) {
+                    drawable.add(emoji.get(i));
+                }
+                return drawable;
+            }
+            return emoji;
+        }
+
+        @Override
+        protected void onPostExecute(ArrayList<String> emoji) {
+            super.onPostExecute(emoji);
+            if (isCancelled()) return;
+            fragment.onEmojiFound(query, emoji);
+        }
+    }
+
+    private static class LoadSearchTask extends AsyncTask<Void, Void, CatalogueSearch> {
+        private Context context;
+        private EmoticonsFragment fragment;
+
+        LoadSearchTask(Context context, EmoticonsFragment fragment) {
+            this.context = context.getApplicationContext();
+            this.fragment = fragment;
+        }
+
+        @Override
+        protected CatalogueSearch doInBackground(Void... params) {
+            try {
+                return CatalogueSearch.getInstance(context);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        @Override
+        protected void onPostExecute(CatalogueSearch search) {
+            super.onPostExecute(search);
+            if (isCancelled()) return;
+            fragment.onSearchLoaded(search);
+        }
+    }
+
     private static class LoadDataTask extends AsyncTask<Void, Void, ArrayList<EmoticonCategory>> {
         private Context context;
         private EmoticonContract.View view;
@@ -145,25 +308,17 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
             view.showProgress();
         }
 
+        /**
+         * Reads the table of contents of the catalogue pack only, the emoticons of a category
+         * are decoded when it is opened
+         */
         @Override
         protected ArrayList<EmoticonCategory> doInBackground(Void... params) {
-            AssetManager assets = context.getAssets();
             ArrayList<EmoticonCategory> categories = new ArrayList<>();
             try {
-                String[] files = assets.list("emoticons");
-                for (String fileName : files) {
-                    if (isCancelled()) break;
-                    JSONObject object = JsonBridge.getJson(assets, "emoticons/" + fileName);
-                    JSONArray jsonArray = object.getJSONArray("data");
-                    ArrayList<String> data = new ArrayList<>();
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        data.add(jsonArray.getString(i));
-                    }
-                    EmoticonCategory item = new EmoticonCategory(
-                            object.getString(EmoticonCategory.TITLE),
-                            object.getString(EmoticonCategory.DESCRIPTION),
-                            data);
-                    categories.add(item);
+                CataloguePack pack = CatalogueAssets.get(context.getAssets());
+                for (CataloguePack.Category category : pack.getCategories(CataloguePack.EMOTICONS)) {
+                    categories.add(new EmoticonCategory(category));
                 }
             } catch (Exception e) {
                 e.printStackTrace();
@@ -171,7 +326,6 @@ public class EmoticonsFragment extends SimpleFragment implements EmoticonContrac
             return categories;
         }
 
-
         @Override
         protected void onPostExecute(ArrayList<EmoticonCategory> list) {
             super.onPostExecute(list);
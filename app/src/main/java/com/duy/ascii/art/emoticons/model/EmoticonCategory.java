@@ -17,6 +17,12 @@
 
 package com.duy.ascii.art.emoticons.model;
 
+import android.support.annotation.Nullable;
+
+import com.duy.ascii.art.database.CataloguePack;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 
@@ -29,6 +35,11 @@ public class EmoticonCategory implements Serializable {
     public static final String DESCRIPTION = "description";
     private String title, description;
     private ArrayList<String> data;
+    /**
+     * Entries of a packed category, decoded on the first {@link #getData()}
+     */
+    @Nullable
+    private transient CataloguePack.Category source;
 
     public EmoticonCategory(String title, String description, ArrayList<String> data) {
         this.title = title;
@@ -36,6 +47,12 @@ public class EmoticonCategory implements Serializable {
         this.data = data;
     }
 
+    public EmoticonCategory(CataloguePack.Category source) {
+        this.title = source.getTitle();
+        this.description = source.getDescription();
+        this.source = source;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -53,10 +70,18 @@ public class EmoticonCategory implements Serializable {
     }
 
     public ArrayList<String> getData() {
+        if (data == null && source != null) {
+            data = source.getValues(0);
+        }
         return data;
     }
 
     public void setData(ArrayList<String> data) {
         this.data = data;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getData();
+        out.defaultWriteObject();
+    }
 }
@@ -53,11 +53,19 @@ public class FavoriteActivity extends AppCompatActivity implements FavoriteContr
 
         mRecyclerView = findViewById(R.id.recycle_view);
         mRecyclerView.setHasFixedSize(true);
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        mRecyclerView.setLayoutManager(layoutManager);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                mPresenter.onVisibleRangeChanged(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+            }
+        });
         mRecyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
         mProgressBar = findViewById(R.id.progress_bar);
         mPresenter = new FavoritePresenter(this, this);
-        mAdapter = new FavoriteAdapter(this, mPresenter.getDatabaseHelper());
+        mAdapter = new FavoriteAdapter(this, mPresenter);
         mRecyclerView.setAdapter(mAdapter);
         mPresenter.loadData();
     }
@@ -79,6 +87,11 @@ public class FavoriteActivity extends AppCompatActivity implements FavoriteContr
         mAdapter.addAll(list);
     }
 
+    @Override
+    public void append(ArrayList<TextItem> page) {
+        mAdapter.addPage(page);
+    }
+
     @Override
     public void setPresenter(FavoriteContract.Presenter presenter) {
         this.mPresenter = (FavoritePresenter) presenter;
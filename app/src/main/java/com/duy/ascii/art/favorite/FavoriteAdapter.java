@@ -29,11 +29,11 @@ import android.widget.Toast;
 
 import com.duy.ascii.art.clipboard.ClipboardManagerCompat;
 import com.duy.ascii.art.clipboard.ClipboardManagerCompatFactory;
-import com.duy.ascii.art.favorite.localdata.DatabaseHelper;
 import com.duy.ascii.art.favorite.localdata.TextItem;
 import com.duy.ascii.art.R;
 
 import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -47,13 +47,13 @@ class FavoriteAdapter extends RecyclerView.Adapter<FavoriteAdapter.ViewHolder> {
     protected LayoutInflater inflater;
     private Context context;
     private ClipboardManagerCompat mClipboard;
-    private DatabaseHelper mDatabaseHelper;
+    private FavoriteContract.Presenter mPresenter;
 
-    FavoriteAdapter(@NonNull Context context, DatabaseHelper databaseHelper) {
+    FavoriteAdapter(@NonNull Context context, FavoriteContract.Presenter presenter) {
         this.context = context;
         this.inflater = LayoutInflater.from(context);
         this.mClipboard = ClipboardManagerCompatFactory.getManager(context);
-        this.mDatabaseHelper = databaseHelper;
+        this.mPresenter = presenter;
     }
 
     @Override
@@ -94,7 +94,7 @@ class FavoriteAdapter extends RecyclerView.Adapter<FavoriteAdapter.ViewHolder> {
     }
 
     private void remove(TextItem item, int adapterPosition) {
-        mDatabaseHelper.delete(item);
+        mPresenter.delete(item);
         mObjects.remove(item);
         if (adapterPosition > -1) {
             notifyItemRemoved(adapterPosition);
@@ -116,6 +116,15 @@ class FavoriteAdapter extends RecyclerView.Adapter<FavoriteAdapter.ViewHolder> {
         notifyItemInserted(mObjects.size() - 1);
     }
 
+    /**
+     * Adds the favorites to the end in their order, with one change notification
+     */
+    public void addPage(List<TextItem> page) {
+        int start = mObjects.size();
+        mObjects.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
     public void addAll(ArrayList<TextItem> list) {
         this.mObjects.clear();
         this.mObjects.addAll(list);
@@ -37,11 +37,23 @@ public class FavoriteContract {
 
         void append(TextItem value);
 
+        /**
+         * Adds a page of older favorites to the end of the list
+         */
+        void append(ArrayList<TextItem> page);
+
     }
 
     public interface Presenter {
         void loadData();
 
+        void onVisibleRangeChanged(int first, int last);
+
+        /**
+         * Deletes the favorite, the view removes it from the list
+         */
+        void delete(TextItem item);
+
         void stop();
     }
 
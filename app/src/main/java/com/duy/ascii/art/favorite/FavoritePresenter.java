@@ -19,6 +19,7 @@ package com.duy.ascii.art.favorite;
 
 import android.content.Context;
 import android.os.AsyncTask;
+import android.support.annotation.Nullable;
 
 import com.duy.ascii.art.favorite.localdata.DatabaseHelper;
 import com.duy.ascii.art.favorite.localdata.TextItem;
@@ -27,13 +28,31 @@ import java.util.ArrayList;
 
 /**
  * Created by Duy on 03-Jul-17.
+ * <p>
+ * Reads the favorites a page at a time, newest first. A page starts after the time of the last
+ * favorite read, so deleting favorites from the list does not move the pages still to come.
  */
 
 public class FavoritePresenter implements FavoriteContract.Presenter {
+    /**
+     * Favorites read and added to the list at a time, a little more than a screen
+     */
+    private static final int PAGE_SIZE = 20;
+    /**
+     * The next page is loaded when the last visible favorite is this close to the end of the list
+     */
+    private static final int PREFETCH_DISTANCE = 10;
+
     private final Context context;
     private final FavoriteContract.View view;
-    private AsyncTask<String, String, ArrayList<TextItem>> mLoadData;
     private DatabaseHelper mDatabaseHelper;
+    @Nullable
+    private LoadPageTask mLoadPageTask;
+    /* time of the last favorite given to the view */
+    private long mLastTime = Long.MAX_VALUE;
+    private boolean mEndReached = false;
+    /* favorites in the list of the view */
+    private int mShown = 0;
 
     public FavoritePresenter(Context context, FavoriteContract.View view) {
         this.context = context;
@@ -47,55 +66,78 @@ public class FavoritePresenter implements FavoriteContract.Presenter {
 
     @Override
     public void loadData() {
+        stop();
+        mLastTime = Long.MAX_VALUE;
+        mEndReached = false;
         view.showProgress();
-        if (mLoadData != null && !mLoadData.isCancelled()) {
-            mLoadData.cancel(true);
+        loadNextPage();
+    }
+
+    @Override
+    public void onVisibleRangeChanged(int first, int last) {
+        if (last >= mShown - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+
+    @Override
+    public void delete(TextItem item) {
+        mDatabaseHelper.delete(item);
+        mShown--;
+    }
+
+    private void loadNextPage() {
+        if (mLoadPageTask != null || mEndReached) return;
+        mLoadPageTask = new LoadPageTask(this, mDatabaseHelper, mLastTime);
+        mLoadPageTask.execute();
+    }
+
+    private void onPageLoaded(long before, ArrayList<TextItem> page) {
+        mLoadPageTask = null;
+        mEndReached = page.size() < PAGE_SIZE;
+        if (!page.isEmpty()) {
+            mLastTime = page.get(page.size() - 1).getTime();
+        }
+        view.hideProgress();
+        if (before == Long.MAX_VALUE) {
+            mShown = page.size();
+            view.display(page);
+        } else {
+            mShown += page.size();
+            view.append(page);
         }
-        LoadDataTask.Callback finish = new LoadDataTask.Callback() {
-            @Override
-            public void onResult(ArrayList<TextItem> list) {
-                view.hideProgress();
-                view.display(list);
-            }
-        };
-        mLoadData = new LoadDataTask(finish, view, mDatabaseHelper);
-        mLoadData.execute();
     }
 
     @Override
     public void stop() {
-        if (mLoadData != null) {
-            mLoadData.cancel(true);
+        if (mLoadPageTask != null) {
+            mLoadPageTask.cancel(true);
+            mLoadPageTask = null;
         }
     }
 
-    private static class LoadDataTask extends AsyncTask<String, String, ArrayList<TextItem>> {
-        private Callback callback;
-        private FavoriteContract.View view;
-        private DatabaseHelper mDatabaseHelper;
+    private static class LoadPageTask extends AsyncTask<Void, Void, ArrayList<TextItem>> {
+        private final FavoritePresenter mPresenter;
+        private final DatabaseHelper mDatabaseHelper;
+        private final long mBefore;
 
-        LoadDataTask(Callback callback, FavoriteContract.View view, DatabaseHelper mDatabaseHelper) {
-            this.callback = callback;
-            this.view = view;
-            this.mDatabaseHelper = mDatabaseHelper;
+        LoadPageTask(FavoritePresenter presenter, DatabaseHelper databaseHelper, long before) {
+            this.mPresenter = presenter;
+            this.mDatabaseHelper = databaseHelper;
+            this.mBefore = before;
         }
 
         @Override
-        protected ArrayList<TextItem> doInBackground(String... params) {
-            return mDatabaseHelper.getAll();
+        protected ArrayList<TextItem> doInBackground(Void... params) {
+            return mDatabaseHelper.getPage(mBefore, PAGE_SIZE);
         }
 
-
         @Override
-        protected void onPostExecute(ArrayList<TextItem> list) {
-            super.onPostExecute(list);
+        protected void onPostExecute(ArrayList<TextItem> page) {
+            super.onPostExecute(page);
             if (!isCancelled()) {
-                callback.onResult(list);
+                mPresenter.onPageLoaded(mBefore, page);
             }
         }
-
-        interface Callback {
-            void onResult(ArrayList<TextItem> list);
-        }
     }
 }
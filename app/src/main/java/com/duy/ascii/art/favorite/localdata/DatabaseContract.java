@@ -37,7 +37,10 @@ public class DatabaseContract {
 
         void delete(TextItem item);
 
-        void insert(TextItem item);
+        /**
+         * @return false if the item is already a favorite or it could not be saved
+         */
+        boolean insert(TextItem item);
 
     }
 }
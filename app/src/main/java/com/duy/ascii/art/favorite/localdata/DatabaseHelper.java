@@ -17,72 +17,138 @@
 
 package com.duy.ascii.art.favorite.localdata;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 
 import static com.duy.ascii.art.favorite.localdata.DatabaseHelper.TextEntry.COLUMN_CONTENT;
+import static com.duy.ascii.art.favorite.localdata.DatabaseHelper.TextEntry.COLUMN_HASH;
 import static com.duy.ascii.art.favorite.localdata.DatabaseHelper.TextEntry.COLUMN_TIME;
 import static com.duy.ascii.art.favorite.localdata.DatabaseHelper.TextEntry.TABLE_NAME;
 
 
 /**
  * Created by Duy on 09-Jul-17.
+ * <p>
+ * Every favorite keeps a hash of its content under a unique index, so the same art is saved
+ * once. Writes of several favorites run in one transaction with compiled statements.
  */
 
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String SQL_CREATE_TABLE =
             "CREATE TABLE " + TABLE_NAME + "(" +
                     COLUMN_TIME + " LONG PRIMARY KEY, " +
-                    COLUMN_CONTENT + " TEXT)";
+                    COLUMN_CONTENT + " TEXT, " +
+                    COLUMN_HASH + " INTEGER)";
+    private static final String SQL_CREATE_HASH_INDEX =
+            "CREATE UNIQUE INDEX " + TABLE_NAME + "_" + COLUMN_HASH + " ON " + TABLE_NAME + "(" + COLUMN_HASH + ")";
+    private static final String SQL_ADD_HASH_COLUMN =
+            "ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_HASH + " INTEGER";
+
+    /* a favorite with the same content is left alone by the unique index */
+    private static final String SQL_INSERT = "INSERT OR IGNORE INTO " + TABLE_NAME +
+            "(" + COLUMN_TIME + ", " + COLUMN_CONTENT + ", " + COLUMN_HASH + ") VALUES (?, ?, ?)";
+    private static final String SQL_TIME_TAKEN =
+            "SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE " + COLUMN_TIME + " = ?";
+    private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_TIME + " = ?";
+    private static final String SQL_SET_HASH =
+            "UPDATE " + TABLE_NAME + " SET " + COLUMN_HASH + " = ? WHERE " + COLUMN_TIME + " = ?";
 
     private static final String SQL_DELETE_TABLE = "DROP TABLE IF EXISTS " + TABLE_NAME;
-    private static final int DATABASE_VERSION = 1;
+    /**
+     * 1: time and content; 2: hash of the content
+     */
+    private static final int DATABASE_VERSION = 2;
     private static final String DATABASE_NAME = "UserDatabase.db";
+    private static final String[] PROJECTION = new String[]{COLUMN_TIME, COLUMN_CONTENT};
+    /* positions of the columns in the projection */
+    private static final int INDEX_TIME = 0;
+    private static final int INDEX_CONTENT = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     public DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
 
+    /**
+     * @return false if the same art is already a favorite or it could not be saved
+     */
     public boolean insert(TextItem textItem) {
+        return insert(Collections.singletonList(textItem)) > 0;
+    }
+
+    /**
+     * Saves the favorites in one transaction. Art that is already a favorite is skipped, and a
+     * favorite whose time is taken, such as two saved in the same millisecond, gets the next
+     * free time; the time of the item is updated to the one saved.
+     *
+     * @return number of favorites added, -1 if none could be saved
+     */
+    public int insert(List<TextItem> items) {
         try {
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(COLUMN_TIME, textItem.getTime());
-            contentValues.put(COLUMN_CONTENT, textItem.getText());
-            SQLiteDatabase writableDatabase = this.getWritableDatabase();
-            writableDatabase.insert(TABLE_NAME, null, contentValues);
-            return true;
+            SQLiteDatabase db = getWritableDatabase();
+            SQLiteStatement timeTaken = db.compileStatement(SQL_TIME_TAKEN);
+            SQLiteStatement insert = db.compileStatement(SQL_INSERT);
+            int added = 0;
+            db.beginTransaction();
+            try {
+                for (TextItem item : items) {
+                    long time = item.getTime();
+                    timeTaken.bindLong(1, time);
+                    while (timeTaken.simpleQueryForLong() > 0) {
+                        timeTaken.bindLong(1, ++time);
+                    }
+                    insert.bindLong(1, time);
+                    insert.bindString(2, item.getText());
+                    insert.bindLong(3, contentHash(item.getText()));
+                    if (insert.executeInsert() != -1) {
+                        item.setTime(time);
+                        added++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                timeTaken.close();
+                insert.close();
+            }
+            return added;
         } catch (Exception e) {
-            return false;
+            e.printStackTrace();
+            return -1;
         }
     }
 
-    public ArrayList<TextItem> getAll() {
-        ArrayList<TextItem> list = new ArrayList<>();
-        String[] projection = new String[]{COLUMN_TIME, COLUMN_CONTENT};
+    /**
+     * Reads the favorites older than a time, newest first. The time is the primary key, so
+     * the range and the order come from its index and a page costs the same wherever it starts
+     *
+     * @param before time of the last favorite of the previous page, {@link Long#MAX_VALUE} for
+     *               the first page
+     */
+    public ArrayList<TextItem> getPage(long before, int count) {
+        ArrayList<TextItem> list = new ArrayList<>(count);
         SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.query(TABLE_NAME, projection, null, null, null, null, null);
-        while (cursor.moveToNext()) {
-            try {
-                long time = cursor.getLong(cursor.getColumnIndex(COLUMN_TIME));
-                String content = cursor.getString(cursor.getColumnIndex(COLUMN_CONTENT));
-                list.add(new TextItem(time, content));
-            } catch (Exception ignored) {
+        Cursor cursor = db.query(TABLE_NAME, PROJECTION, COLUMN_TIME + " < ?",
+                new String[]{String.valueOf(before)}, null, null, COLUMN_TIME + " DESC",
+                String.valueOf(count));
+        try {
+            while (cursor.moveToNext()) {
+                list.add(new TextItem(cursor.getLong(INDEX_TIME), cursor.getString(INDEX_CONTENT)));
             }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
-        Collections.sort(list, new Comparator<TextItem>() {
-            @Override
-            public int compare(TextItem textItem, TextItem t1) {
-                return Long.valueOf(t1.getTime()).compareTo(textItem.getTime());
-            }
-        });
         return list;
     }
 
@@ -92,7 +158,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     public int delete(long time) {
         try {
-            String selection = COLUMN_TIME + " LIKE ?";
+            String selection = COLUMN_TIME + " = ?";
             SQLiteDatabase db = this.getWritableDatabase();
             return db.delete(TABLE_NAME, selection, new String[]{time + ""});
         } catch (Exception e) {
@@ -100,25 +166,118 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
+    /**
+     * Deletes the favorites in one transaction
+     *
+     * @return number of favorites deleted, -1 if none could be deleted
+     */
+    public int delete(List<TextItem> items) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            SQLiteStatement delete = db.compileStatement(SQL_DELETE);
+            int deleted = 0;
+            db.beginTransaction();
+            try {
+                for (TextItem item : items) {
+                    delete.bindLong(1, item.getTime());
+                    deleted += delete.executeUpdateDelete();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                delete.close();
+            }
+            return deleted;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * @return the first 64 bits of the SHA-1 of the content
+     */
+    private static long contentHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(content.getBytes(UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = hash << 8 | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase sqLiteDatabase) {
         sqLiteDatabase.execSQL(SQL_CREATE_TABLE);
+        sqLiteDatabase.execSQL(SQL_CREATE_HASH_INDEX);
     }
 
+    /**
+     * Runs in the transaction of the open helper, the favorites are kept
+     */
     @Override
-    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int i, int i1) {
-        sqLiteDatabase.execSQL(SQL_DELETE_TABLE);
-        onCreate(sqLiteDatabase);
+    public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            sqLiteDatabase.execSQL(SQL_ADD_HASH_COLUMN);
+            addHashes(sqLiteDatabase);
+            sqLiteDatabase.execSQL(SQL_CREATE_HASH_INDEX);
+        }
+    }
+
+    /**
+     * Fills the hash of the saved favorites and deletes the older copies of the same art, which
+     * the unique index would not allow
+     */
+    private void addHashes(SQLiteDatabase db) {
+        // read first, the table is not changed under an open cursor
+        ArrayList<long[]> rows = new ArrayList<>();
+        Cursor cursor = db.query(TABLE_NAME, PROJECTION, null, null, null, null, COLUMN_TIME + " DESC");
+        try {
+            while (cursor.moveToNext()) {
+                String content = cursor.getString(INDEX_CONTENT);
+                rows.add(new long[]{cursor.getLong(INDEX_TIME), contentHash(content == null ? "" : content)});
+            }
+        } finally {
+            cursor.close();
+        }
+
+        SQLiteStatement setHash = db.compileStatement(SQL_SET_HASH);
+        SQLiteStatement delete = db.compileStatement(SQL_DELETE);
+        try {
+            HashSet<Long> saved = new HashSet<>();
+            for (long[] row : rows) {
+                if (saved.add(row[1])) {
+                    setHash.bindLong(1, row[1]);
+                    setHash.bindLong(2, row[0]);
+                    setHash.executeUpdateDelete();
+                } else {
+                    delete.bindLong(1, row[0]);
+                    delete.executeUpdateDelete();
+                }
+            }
+        } finally {
+            setHash.close();
+            delete.close();
+        }
     }
 
+    /**
+     * The schema of a newer version is unknown, start over
+     */
     @Override
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        onUpgrade(db, oldVersion, newVersion);
+        db.execSQL(SQL_DELETE_TABLE);
+        onCreate(db);
     }
 
     public static class TextEntry {
         public static final String COLUMN_TIME = "time";
         public static final String COLUMN_CONTENT = "content";
+        public static final String COLUMN_HASH = "hash";
         public static final String TABLE_NAME = "tbl_custom";
     }
 }
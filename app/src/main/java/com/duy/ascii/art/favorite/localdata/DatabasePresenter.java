@@ -46,8 +46,8 @@ public class DatabasePresenter implements DatabaseContract.Presenter {
     }
 
     @Override
-    public void insert(TextItem item) {
-        mDatabaseHelper.insert(item);
+    public boolean insert(TextItem item) {
+        return mDatabaseHelper.insert(item);
     }
 
 }
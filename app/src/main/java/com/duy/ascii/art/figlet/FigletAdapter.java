@@ -19,7 +19,6 @@ package com.duy.ascii.art.figlet;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Color;
 import android.graphics.Typeface;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -31,6 +30,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.duy.ascii.art.ImageFactory;
+import com.duy.ascii.art.TextRasterizer;
 import com.duy.ascii.art.clipboard.ClipboardManagerCompat;
 import com.duy.ascii.art.clipboard.ClipboardManagerCompatFactory;
 import com.duy.ascii.art.utils.FileUtil;
@@ -48,6 +48,8 @@ import java.util.ArrayList;
 
 class FigletAdapter extends RecyclerView.Adapter<FigletAdapter.ViewHolder> {
     private static final String TAG = "ResultAdapter";
+    // exported images are twice the size of the text on screen, so they stay sharp when zoomed
+    private static final float EXPORT_SCALE = 2f;
     private final ArrayList<String> items = new ArrayList<>();
     private Context context;
     private LayoutInflater inflater;
@@ -58,6 +60,8 @@ class FigletAdapter extends RecyclerView.Adapter<FigletAdapter.ViewHolder> {
     private OnItemClickListener onItemClickListener;
     private int backgroundColor;
     private int textColor;
+    @Nullable
+    private TextRasterizer rasterizer;
 
     FigletAdapter(@NonNull Context context, @Nullable View emptyView) {
         this.context = context;
@@ -125,8 +129,12 @@ class FigletAdapter extends RecyclerView.Adapter<FigletAdapter.ViewHolder> {
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private File getImage(View view) throws IOException {
-        Bitmap image = ImageFactory.createImageFromView(view, Color.WHITE);
+    private File getImage(TextView view) throws IOException {
+        // the atlas of the rasterizer is drawn for one text size, so a new size needs a new one
+        if (rasterizer == null || rasterizer.getTextSize() != view.getTextSize()) {
+            rasterizer = new TextRasterizer(Typeface.MONOSPACE, view.getTextSize());
+        }
+        Bitmap image = rasterizer.createBitmap(view.getText(), textColor, backgroundColor, EXPORT_SCALE);
         File file = new File(FileUtil.getImageDirectory(context), System.currentTimeMillis() + ".png");
         if (!file.exists()) {
             file.getParentFile().mkdirs();
@@ -49,6 +49,16 @@ public class FigletContract {
     public interface Presenter {
         void onTextChanged(@NonNull String text);
 
+        /**
+         * Positions of the first and the last result on screen
+         */
+        void onVisibleRangeChanged(int first, int last);
+
+        /**
+         * @see android.content.ComponentCallbacks2#onTrimMemory(int)
+         */
+        void onTrimMemory(int level);
+
         void cancel();
     }
 }
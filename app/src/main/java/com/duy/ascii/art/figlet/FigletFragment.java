@@ -19,8 +19,10 @@ package com.duy.ascii.art.figlet;
 
 import android.Manifest;
 import android.app.Dialog;
+import android.content.ComponentCallbacks2;
 import android.content.DialogInterface;
 import android.content.SharedPreferences;
+import android.content.res.Configuration;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
@@ -81,6 +83,24 @@ public class FigletFragment extends Fragment implements FigletContract.View, Fig
         }
     };
 
+    private ComponentCallbacks2 mMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (mPresenter != null) {
+                mPresenter.onTrimMemory(level);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+    };
+
     public static FigletFragment newInstance() {
 
         Bundle args = new Bundle();
@@ -148,7 +168,17 @@ public class FigletFragment extends Fragment implements FigletContract.View, Fig
 
         RecyclerView mRecyclerView = view.findViewById(R.id.listview);
         mRecyclerView.setHasFixedSize(false);
-        mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getActivity());
+        mRecyclerView.setLayoutManager(layoutManager);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (mPresenter != null) {
+                    mPresenter.onVisibleRangeChanged(layoutManager.findFirstVisibleItemPosition(),
+                            layoutManager.findLastVisibleItemPosition());
+                }
+            }
+        });
         mAdapter = new FigletAdapter(getContext(), view.findViewById(R.id.empty_view));
         mAdapter.setOnItemClickListener(this);
         mRecyclerView.setAdapter(mAdapter);
@@ -157,6 +187,7 @@ public class FigletFragment extends Fragment implements FigletContract.View, Fig
         if (mPresenter == null) {
             mPresenter = new FigletPresenter(getContext().getAssets(), this);
         }
+        getContext().registerComponentCallbacks(mMemoryCallbacks);
     }
 
     @Override
@@ -174,6 +205,7 @@ public class FigletFragment extends Fragment implements FigletContract.View, Fig
         if (mPresenter != null) {
             mPresenter.cancel();
         }
+        getContext().unregisterComponentCallbacks(mMemoryCallbacks);
         super.onDestroyView();
     }
 
@@ -17,14 +17,28 @@
 
 package com.duy.ascii.art.figlet;
 
+import android.content.ComponentCallbacks2;
 import android.content.res.AssetManager;
 import android.os.AsyncTask;
 import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.common.utils.DLog;
+
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -32,38 +46,111 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 
 public class FigletPresenter implements FigletContract.Presenter {
+    /**
+     * All fonts of assets/fonts, generated at build time, see FigletFontPack
+     */
+    private static final String FONT_PACK = "figlet.pack";
+    private static final int RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final String TAG = "FigletPresenter";
+
     /**
      * this maps wil be store {@link FigletModel} created
      */
-    private HashMap<String, FigletModel> caches = new HashMap<>();
+    private final FontCache caches = new FontCache(Runtime.getRuntime().maxMemory() / 16) {
+        @Override
+        protected void onEvicted(String name, FigletModel font) {
+            lines.remove(name);
+        }
+    };
+    /**
+     * Rendering of the last text in every font
+     */
+    private ConcurrentHashMap<String, FigletModel.Line> lines = new ConcurrentHashMap<>();
+    /**
+     * Renders the fonts in parallel, the threads die when idle
+     */
+    private final ThreadPoolExecutor renderPool;
 
     private AssetManager assetManager;
+    @Nullable
+    private FigletFontPack fontPack;
     private FigletContract.View mView;
     private FigletModel mFigletModel;
     private long updateTime;
     private Handler handler = new Handler();
     private TaskGenerateData mTaskGenerateData;
     private ProcessData process = new ProcessData();
+    /**
+     * Font of every result shown, in the order of the results
+     */
+    private final List<String> shownFonts = new ArrayList<>();
+    private final List<String> pinnedFonts = new ArrayList<>();
 
     public FigletPresenter(AssetManager assetManager, @NonNull FigletContract.View view) {
         this.assetManager = assetManager;
         this.mView = view;
+        this.renderPool = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 2, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        this.renderPool.allowCoreThreadTimeOut(true);
     }
 
     public String convert(String fontName, String data) {
-        if (caches.get(fontName) != null) {
-            return caches.get(fontName).convert(data);
-        } else {
-            try {
-                caches.put(fontName, new FigletModel(assetManager.open("fonts/" + fontName)));
-                return caches.get(fontName).convert(data);
-            } catch (IOException e) {
-                e.printStackTrace();
+        try {
+            FigletModel font = getFont(fontName);
+            if (data.indexOf('\n') >= 0) {
+                return font.convert(data);
+            }
+            // typing usually appends or deletes the last character, the line of the previous
+            // text lays out only the edit
+            FigletModel.Line line = lines.get(fontName);
+            if (line == null) {
+                line = font.newLine();
+                FigletModel.Line other = lines.putIfAbsent(fontName, line);
+                if (other != null) line = other;
             }
+            String result;
+            long lineSize;
+            synchronized (line) {
+                line.setText(data);
+                result = line.toString();
+                lineSize = line.getEstimatedSize();
+            }
+            // the line is dropped with the font, its buffers count against the cache
+            caches.setAttachedSize(fontName, lineSize);
+            return result;
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         return data;
     }
 
+    private FigletModel getFont(String fontName) throws IOException {
+        FigletModel font = caches.get(fontName);
+        if (font == null) {
+            font = loadFont(fontName);
+            caches.put(fontName, font);
+        }
+        return font;
+    }
+
+    /**
+     * The fonts ship in the pack only, assets/fonts is not in the apk
+     */
+    private synchronized FigletFontPack getFontPack() throws IOException {
+        if (fontPack == null) {
+            fontPack = new FigletFontPack(CatalogueAssets.openPack(assetManager, FONT_PACK));
+        }
+        return fontPack;
+    }
+
+    private FigletModel loadFont(String fontName) throws IOException {
+        FigletModel font = getFontPack().getFont(fontName);
+        if (font == null) {
+            throw new FileNotFoundException(fontName + " is not in " + FONT_PACK);
+        }
+        return font;
+    }
+
     @Override
     public void onTextChanged(@NonNull String text) {
         handler.removeCallbacks(process);
@@ -71,6 +158,29 @@ public class FigletPresenter implements FigletContract.Presenter {
         handler.postDelayed(process, 300);
     }
 
+    @Override
+    public void onVisibleRangeChanged(int first, int last) {
+        // the fonts of the results on screen stay loaded
+        for (String font : pinnedFonts) {
+            caches.unpin(font);
+        }
+        pinnedFonts.clear();
+        for (int i = Math.max(0, first); i <= last && i < shownFonts.size(); i++) {
+            pinnedFonts.add(shownFonts.get(i));
+            caches.pin(shownFonts.get(i));
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            caches.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            caches.trimToSize(caches.getMaxSize() / 2);
+        }
+        if (DLog.DEBUG) DLog.d(TAG, "onTrimMemory " + level + ": " + caches);
+    }
+
     @Override
     public void cancel() {
         handler.removeCallbacks(process);
@@ -94,6 +204,8 @@ public class FigletPresenter implements FigletContract.Presenter {
 
         @Override
         public void run() {
+            // the results of the previous text are not needed anymore
+            cancel();
             taskGenerateData = new TaskGenerateData();
             taskGenerateData.execute(input);
         }
@@ -117,25 +229,44 @@ public class FigletPresenter implements FigletContract.Presenter {
             maxProgress = mView.getMaxProgress();
             mView.setProgress(0);
             mView.clearResult();
+            onVisibleRangeChanged(-1, -1);
+            shownFonts.clear();
         }
 
         @Override
         protected Void doInBackground(String... params) {
-            String input = params[0];
+            final String input = params[0];
+            List<Future<String>> results = new ArrayList<>();
             try {
                 if (input.isEmpty()) return null;
-                AssetManager assets = assetManager;
-                String[] files = assets.list("fonts");
-                this.count.set(files.length);
-                for (String fontName : files) {
+                // only the fonts that have a glyph for every character are used
+                List<String> files = getFontPack().getFontNamesFor(input);
+                this.count.set(files.size());
+                for (final String fontName : files) {
+                    FutureTask<String> result = new FutureTask<>(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return convert(fontName, input);
+                        }
+                    });
+                    results.add(result);
+                    renderPool.execute(result);
+                }
+                // publish in font order, each result as soon as all fonts before it are done
+                for (int i = 0; i < results.size(); i++) {
                     if (isCancelled()) return null;
                     try {
-                        String s1 = convert(fontName, input);
-                        publishProgress(s1);
-                    } catch (Exception ignored) {
+                        publishProgress(results.get(i).get(), files.get(i));
+                    } catch (ExecutionException ignored) {
                     }
                 }
             } catch (IOException ignored) {
+            } catch (InterruptedException ignored) {
+                // cancelled while waiting for a font
+            } finally {
+                for (Future<String> result : results) {
+                    result.cancel(true);
+                }
             }
             return null;
         }
@@ -145,6 +276,7 @@ public class FigletPresenter implements FigletContract.Presenter {
             super.onProgressUpdate(values);
             if (isCancelled()) return;
             mView.addResult(values[0]);
+            shownFonts.add(values[1]);
             mView.setProgress((int) (maxProgress / count.get() * current.incrementAndGet()));
         }
 
@@ -21,6 +21,7 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.os.Environment;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.duy.ascii.art.utils.FileUtil;
 
@@ -45,7 +46,23 @@ public class AsciiImageWriter {
 
     public static String saveImage(Context context, Bitmap image)
             throws IOException {
-        String datestr = filenameDateFormat.format(new Date());
+        return saveImage(context, image, null);
+    }
+
+    /**
+     * @param suffix appended to the file name, keeps names unique when several images are
+     *               written in the same second
+     */
+    public static String saveImage(Context context, Bitmap image, @Nullable String suffix)
+            throws IOException {
+        String datestr;
+        // DateFormat is not thread safe
+        synchronized (filenameDateFormat) {
+            datestr = filenameDateFormat.format(new Date());
+        }
+        if (suffix != null) {
+            datestr = datestr + "_" + suffix;
+        }
         Boolean isSDPresent = Environment.getExternalStorageState().equals(Environment.MEDIA_MOUNTED);
         File imageFile;
         if (isSDPresent) {
@@ -198,8 +198,8 @@ public class AsciiRenderer {
         charsBitmapCanvas.drawARGB(255, 0, 0, 0);
         paint.setTextSize(textSize);
         paint.setColor(0xffffffff);
-        for (int i = 0; i < result.pixelChars.length; i++) {
-            charsBitmapCanvas.drawText(result.pixelChars[i], charPixelWidth * i, charPixelHeight, paint);
+        for (int i = 0; i < result.getPixelChars().length; i++) {
+            charsBitmapCanvas.drawText(result.getPixelChars()[i], charPixelWidth * i, charPixelHeight, paint);
         }
 
         // Extract brightness bytes from the bitmap and flatten to a 1d array.
@@ -282,6 +282,16 @@ public class AsciiRenderer {
         return bitmaps[activeBitmapIndex];
     }
 
+    /**
+     * Same as {@link #createBitmap(AsciiConverter.Result)} but always draws into a new bitmap, so
+     * the caller owns the result and may keep it after the next call.
+     */
+    public Bitmap createNewBitmap(AsciiConverter.Result result) {
+        Bitmap bitmap = Bitmap.createBitmap(outputImageWidth, outputImageHeight, Bitmap.Config.ARGB_8888);
+        drawIntoBitmap(result, bitmap);
+        return bitmap;
+    }
+
     // For thumbnails, create image one-fourth normal size, use every other row and column, and draw solid rectangles
     // instead of text because text won't scale down well for gallery view.
     public Bitmap createThumbnailBitmap(AsciiConverter.Result result) {
@@ -0,0 +1,440 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.duy.ascii.art.image.converter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.duy.ascii.art.image.converter.AsciiConverter.ColorType;
+import static com.duy.ascii.art.image.converter.AsciiConverter.Result;
+
+/**
+ * Converts many images at once. Every image passes through four stages: decode, convert, render
+ * and encode. The stages are joined by bounded queues and each stage has its own threads, so the
+ * CPU bound converter runs while other images are still being decoded or written to disk.
+ * When a queue is full the stage feeding it blocks, which keeps the number of bitmaps held in
+ * memory bounded no matter how many images are submitted.
+ */
+public class ImagePipeline {
+    public static final int STAGE_DECODE = 0;
+    public static final int STAGE_CONVERT = 1;
+    public static final int STAGE_RENDER = 2;
+    public static final int STAGE_ENCODE = 3;
+    private static final String TAG = "ImagePipeline";
+    private static final String[] STAGE_NAMES = {"decode", "convert", "render", "encode"};
+
+    private final Context context;
+    private final ColorType colorType;
+    private final int[] threads = new int[STAGE_NAMES.length];
+    private final List<AsciiRenderer> renderers = new ArrayList<>();
+    private final AtomicInteger completed = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    @Nullable
+    private Callback callback;
+    private int queueCapacity = 4;
+    private int displayWidth;
+    private int displayHeight;
+    private int minWidth;
+    private int minHeight;
+    private int total;
+    private long startTime;
+    private volatile boolean cancelled;
+    private Stage[] stages;
+
+    public ImagePipeline(Context context, @Nullable ColorType colorType) {
+        this.context = context.getApplicationContext();
+        this.colorType = colorType == null ? ColorType.NONE : colorType;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        threads[STAGE_DECODE] = 2;
+        threads[STAGE_CONVERT] = cores;
+        threads[STAGE_RENDER] = Math.max(1, cores / 2);
+        threads[STAGE_ENCODE] = 2;
+
+        int[] displaySize = ProcessImageOperation.getDisplaySize(context);
+        displayWidth = displaySize[0];
+        displayHeight = displaySize[1];
+        AsciiRenderer renderer = createRenderer();
+        minWidth = Math.max(2 * renderer.asciiColumns(), 480);
+        minHeight = Math.max(2 * renderer.asciiRows(), 320);
+    }
+
+    public void setCallback(@Nullable Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * @param stage   one of {@link #STAGE_DECODE}, {@link #STAGE_CONVERT}, {@link #STAGE_RENDER}
+     *                or {@link #STAGE_ENCODE}
+     * @param threads number of threads working on that stage
+     */
+    public void setThreads(int stage, int threads) {
+        this.threads[stage] = Math.max(1, threads);
+    }
+
+    /**
+     * Maximum number of images waiting in front of each stage
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Runs every image through the pipeline and blocks until the last one has been written.
+     * Must not be called on the main thread.
+     *
+     * @return the final statistics of this run
+     */
+    @NonNull
+    public Statistics process(List<Uri> uris) throws InterruptedException {
+        cancelled = false;
+        completed.set(0);
+        failed.set(0);
+        total = uris.size();
+        startTime = System.nanoTime();
+
+        BlockingQueue<Job> decodeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Job> convertQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Job> renderQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Job> encodeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        stages = new Stage[]{
+                new DecodeStage(decodeQueue, convertQueue),
+                new ConvertStage(convertQueue, renderQueue),
+                new RenderStage(renderQueue, encodeQueue),
+                new EncodeStage(encodeQueue)};
+
+        ExecutorService[] executors = new ExecutorService[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            executors[i] = stages[i].start();
+        }
+        try {
+            for (int i = 0; i < uris.size() && !cancelled; i++) {
+                // blocks while the decoder is behind
+                decodeQueue.put(new Job(i, uris.get(i)));
+            }
+            decodeQueue.put(Job.END);
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    if (cancelled) break;
+                }
+            }
+        } finally {
+            for (ExecutorService executor : executors) {
+                executor.shutdownNow();
+            }
+            synchronized (renderers) {
+                for (AsciiRenderer renderer : renderers) {
+                    renderer.destroyThreadPool();
+                }
+                renderers.clear();
+            }
+        }
+        Statistics statistics = getStatistics();
+        Log.d(TAG, "process: " + statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops feeding new images. Images already in flight skip the remaining stages.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @NonNull
+    public Statistics getStatistics() {
+        int[] depths = new int[STAGE_NAMES.length];
+        int[] maxDepths = new int[STAGE_NAMES.length];
+        Stage[] stages = this.stages;
+        if (stages != null) {
+            for (int i = 0; i < stages.length; i++) {
+                depths[i] = stages[i].input.size();
+                maxDepths[i] = stages[i].maxQueueDepth;
+            }
+        }
+        return new Statistics(total, completed.get(), failed.get(),
+                (System.nanoTime() - startTime) / 1000000, depths, maxDepths);
+    }
+
+    private AsciiRenderer createRenderer() {
+        AsciiRenderer renderer = new AsciiRenderer();
+        renderer.setMaximumImageSize(displayWidth, displayHeight);
+        return renderer;
+    }
+
+    private void onJobFinished(Job job) {
+        if (job.error != null) {
+            failed.incrementAndGet();
+            Log.w(TAG, "Failed to convert " + job.uri, job.error);
+        }
+        completed.incrementAndGet();
+        if (callback != null) {
+            callback.onImageProcessed(job.uri, job.path, job.error);
+            callback.onStatistics(getStatistics());
+        }
+    }
+
+    public interface Callback {
+        /**
+         * Called from an encoder thread once an image has left the pipeline
+         *
+         * @param path  the PNG file, null if the image failed or the pipeline was cancelled
+         * @param error the reason of the failure
+         */
+        void onImageProcessed(@NonNull Uri uri, @Nullable String path, @Nullable Exception error);
+
+        void onStatistics(@NonNull Statistics statistics);
+    }
+
+    /**
+     * Snapshot of the pipeline, the queue arrays are indexed by stage
+     */
+    public static class Statistics {
+        public final int total;
+        public final int completed;
+        public final int failed;
+        public final long elapsedMillis;
+        public final int[] queueDepths;
+        public final int[] maxQueueDepths;
+
+        Statistics(int total, int completed, int failed, long elapsedMillis,
+                   int[] queueDepths, int[] maxQueueDepths) {
+            this.total = total;
+            this.completed = completed;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+            this.queueDepths = queueDepths;
+            this.maxQueueDepths = maxQueueDepths;
+        }
+
+        public float getImagesPerSecond() {
+            if (elapsedMillis <= 0) return 0;
+            return (completed - failed) * 1000f / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.US, "%d/%d images (%d failed) in %d ms, %.2f images/s",
+                    completed, total, failed, elapsedMillis, getImagesPerSecond()));
+            for (int i = 0; i < STAGE_NAMES.length; i++) {
+                builder.append(String.format(Locale.US, ", %s queue %d (max %d)",
+                        STAGE_NAMES[i], queueDepths[i], maxQueueDepths[i]));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * One image travelling through the stages
+     */
+    private static class Job {
+        static final Job END = new Job(-1, null);
+
+        final int index;
+        final Uri uri;
+        Bitmap bitmap;
+        int bitmapWidth, bitmapHeight;
+        Result result;
+        Bitmap image;
+        String path;
+        Exception error;
+
+        Job(int index, Uri uri) {
+            this.index = index;
+            this.uri = uri;
+        }
+
+        void recycle() {
+            if (bitmap != null && !bitmap.isRecycled()) bitmap.recycle();
+            if (image != null && !image.isRecycled()) image.recycle();
+            bitmap = null;
+            image = null;
+            result = null;
+        }
+    }
+
+    private abstract class Stage implements Runnable {
+        final BlockingQueue<Job> input;
+        @Nullable
+        final BlockingQueue<Job> output;
+        final int index;
+        final AtomicInteger running = new AtomicInteger(0);
+        volatile int maxQueueDepth;
+
+        Stage(int index, BlockingQueue<Job> input, @Nullable BlockingQueue<Job> output) {
+            this.index = index;
+            this.input = input;
+            this.output = output;
+        }
+
+        ExecutorService start() {
+            int count = threads[index];
+            running.set(count);
+            ExecutorService executor = Executors.newFixedThreadPool(count);
+            for (int i = 0; i < count; i++) {
+                executor.execute(this);
+            }
+            return executor;
+        }
+
+        abstract void process(Job job) throws Exception;
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    int depth = input.size();
+                    if (depth > maxQueueDepth) maxQueueDepth = depth;
+                    Job job = input.take();
+                    if (job == Job.END) {
+                        // let the other threads of this stage see the end marker too
+                        input.put(Job.END);
+                        break;
+                    }
+                    if (job.error == null && !cancelled) {
+                        try {
+                            process(job);
+                        } catch (Exception e) {
+                            job.error = e;
+                        }
+                    }
+                    if (job.error != null || cancelled) {
+                        job.recycle();
+                    }
+                    if (output != null) {
+                        output.put(job);
+                    } else {
+                        onJobFinished(job);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // also runs when an Error such as OutOfMemoryError kills this thread, otherwise
+                // the next stage never sees the end marker and process() waits forever
+                if (running.decrementAndGet() == 0 && output != null) {
+                    try {
+                        output.put(Job.END);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    private class DecodeStage extends Stage {
+        DecodeStage(BlockingQueue<Job> input, BlockingQueue<Job> output) {
+            super(STAGE_DECODE, input, output);
+        }
+
+        @Override
+        void process(Job job) throws Exception {
+            Bitmap bitmap = AndroidUtils.scaledBitmapFromURIWithMinimumSize(context, job.uri, minWidth, minHeight);
+            if (bitmap == null) {
+                throw new IOException("Can not decode " + job.uri);
+            }
+            job.bitmap = bitmap;
+            job.bitmapWidth = bitmap.getWidth();
+            job.bitmapHeight = bitmap.getHeight();
+        }
+    }
+
+    private class ConvertStage extends Stage {
+        private final AsciiConverter converter = new AsciiConverter();
+
+        ConvertStage(BlockingQueue<Job> input, BlockingQueue<Job> output) {
+            super(STAGE_CONVERT, input, output);
+        }
+
+        @Override
+        void process(Job job) {
+            // the size of the ascii grid depends only on the image size, see ProcessImageOperation
+            AsciiRenderer renderer = createRenderer();
+            renderer.setCameraImageSize(job.bitmapWidth, job.bitmapHeight);
+            renderer.setTextSize(12);
+            job.result = converter.computeResultForBitmap(new BitmapPixelSource(job.bitmap),
+                    renderer.asciiRows(), renderer.asciiColumns(), colorType);
+            job.bitmap.recycle();
+            job.bitmap = null;
+        }
+    }
+
+    private class RenderStage extends Stage {
+        // AsciiRenderer keeps its glyph bitmap between calls, so every thread owns one
+        private final ThreadLocal<AsciiRenderer> renderer = new ThreadLocal<AsciiRenderer>() {
+            @Override
+            protected AsciiRenderer initialValue() {
+                AsciiRenderer renderer = createRenderer();
+                // parallelism comes from the stage, not from the renderer
+                renderer.initRenderThreadPool(1);
+                synchronized (renderers) {
+                    renderers.add(renderer);
+                }
+                return renderer;
+            }
+        };
+
+        RenderStage(BlockingQueue<Job> input, BlockingQueue<Job> output) {
+            super(STAGE_RENDER, input, output);
+        }
+
+        @Override
+        void process(Job job) {
+            AsciiRenderer renderer = this.renderer.get();
+            renderer.setCameraImageSize(job.bitmapWidth, job.bitmapHeight);
+            renderer.setTextSize(12);
+            job.image = renderer.createNewBitmap(job.result);
+            job.result = null;
+        }
+    }
+
+    private class EncodeStage extends Stage {
+        EncodeStage(BlockingQueue<Job> input) {
+            super(STAGE_ENCODE, input, null);
+        }
+
+        @Override
+        void process(Job job) throws IOException {
+            job.path = AsciiImageWriter.saveImage(context, job.image, String.valueOf(job.index));
+            job.image.recycle();
+            job.image = null;
+        }
+    }
+}
@@ -20,12 +20,14 @@ package com.duy.ascii.art.image.converter;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.net.Uri;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 import android.view.Display;
 import android.view.WindowManager;
 
 import java.io.IOException;
+import java.util.List;
 
 import static com.duy.ascii.art.image.converter.AsciiConverter.ColorType;
 import static com.duy.ascii.art.image.converter.AsciiConverter.Result;
@@ -49,14 +51,9 @@ public class ProcessImageOperation {
             colorType = type;
         }
 
-        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        Display display = wm.getDefaultDisplay();
-        // assume width is always larger
-        int displayWidth = Math.max(display.getWidth(), display.getHeight());
-        int displayHeight = Math.min(display.getWidth(), display.getHeight());
-
+        int[] displaySize = getDisplaySize(context);
         final AsciiRenderer renderer = new AsciiRenderer();
-        renderer.setMaximumImageSize(displayWidth, displayHeight);
+        renderer.setMaximumImageSize(displaySize[0], displaySize[1]);
 
         int minWidth = Math.max(2 * renderer.asciiColumns(), 480);
         int minHeight = Math.max(2 * renderer.asciiRows(), 320);
@@ -69,11 +66,38 @@ public class ProcessImageOperation {
         renderer.setTextSize(12);
 
         AsciiConverter converter = new AsciiConverter();
-        final Result result = converter.computeResultForBitmap(bitmap,
+        final Result result = converter.computeResultForBitmap(new BitmapPixelSource(bitmap),
                 renderer.asciiRows(), renderer.asciiColumns(), colorType);
 
         String path = AsciiImageWriter.saveImage(context, renderer.createBitmap(result));
         if (!bitmap.isRecycled()) bitmap.recycle();
         return path;
     }
+
+    /**
+     * Converts all images with the batch pipeline, see {@link ImagePipeline}. Blocks until every
+     * image has been written, so it must be called from a background thread.
+     */
+    @NonNull
+    public static ImagePipeline.Statistics processImages(Context context, List<Uri> uris,
+                                                         @Nullable ColorType type,
+                                                         @Nullable ImagePipeline.Callback callback)
+            throws InterruptedException {
+        Log.d(TAG, "processImages() called with: " + uris.size() + " images");
+        ImagePipeline pipeline = new ImagePipeline(context, type);
+        pipeline.setCallback(callback);
+        return pipeline.process(uris);
+    }
+
+    /**
+     * @return width and height of the display, the width is always the larger one
+     */
+    static int[] getDisplaySize(Context context) {
+        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        Display display = wm.getDefaultDisplay();
+        // assume width is always larger
+        int displayWidth = Math.max(display.getWidth(), display.getHeight());
+        int displayHeight = Math.min(display.getWidth(), display.getHeight());
+        return new int[]{displayWidth, displayHeight};
+    }
 }
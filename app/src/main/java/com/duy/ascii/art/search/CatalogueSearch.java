@@ -0,0 +1,173 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.duy.ascii.art.BuildConfig;
+import com.duy.ascii.art.database.CatalogueAssets;
+import com.duy.ascii.art.database.CataloguePack;
+import com.duy.common.utils.DLog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * Search over the emoji descriptions and the emoticon category titles and descriptions of the
+ * assets. The index is built the first time it is needed and saved in the files directory for
+ * this version of the app; later it is memory mapped from there, so opening it costs no parsing.
+ * <pre>
+ * int emoji count, for every emoji short length and UTF-8 bytes of the emoji,
+ * the {@link SearchIndex}: emoji are the documents from 0, emoticon categories follow them
+ * in the order of the asset files
+ * </pre>
+ */
+public class CatalogueSearch {
+    private static final String TAG = "CatalogueSearch";
+    private static final String FILE_PREFIX = "catalogue_search_";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static CatalogueSearch sInstance;
+
+    private final SearchIndex index;
+    private final String[] emoji;
+
+    private CatalogueSearch(ByteBuffer buffer) throws IOException {
+        emoji = new String[buffer.getInt()];
+        for (int i = 0; i < emoji.length; i++) {
+            byte[] bytes = new byte[buffer.getShort()];
+            buffer.get(bytes);
+            emoji[i] = new String(bytes, UTF_8);
+        }
+        index = SearchIndex.read(buffer.slice());
+    }
+
+    /**
+     * Opens the saved index, builds and saves it first if there is none. Slow the first time,
+     * call it in the background.
+     */
+    public static synchronized CatalogueSearch getInstance(Context context) throws IOException {
+        if (sInstance == null) {
+            File file = new File(context.getFilesDir(), FILE_PREFIX + BuildConfig.VERSION_CODE);
+            if (!file.exists()) {
+                deleteOldIndexes(context.getFilesDir(), file);
+                build(context, file);
+            }
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = in.getChannel();
+                sInstance = new CatalogueSearch(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                in.close();
+            }
+        }
+        return sInstance;
+    }
+
+    private static void deleteOldIndexes(File dir, File current) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().startsWith(FILE_PREFIX) && !file.equals(current)) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    private static void build(Context context, File file) throws IOException {
+        long time = System.currentTimeMillis();
+        CataloguePack pack = CatalogueAssets.get(context.getAssets());
+        SearchIndex.Builder builder = new SearchIndex.Builder();
+        ArrayList<String> emoji = new ArrayList<>();
+        for (CataloguePack.Category category : pack.getCategories(CataloguePack.EMOJI)) {
+            for (int i = 0; i < category.size(); i++) {
+                builder.add(emoji.size(), category.get(i, CataloguePack.EMOJI_DESCRIPTION), TITLE_WEIGHT);
+                emoji.add(category.get(i, CataloguePack.EMOJI_CHARACTER));
+            }
+        }
+        int document = emoji.size();
+        for (CataloguePack.Category category : pack.getCategories(CataloguePack.EMOTICONS)) {
+            // titles and descriptions are in the table of contents, the emoticons stay packed
+            builder.add(document, category.getTitle(), TITLE_WEIGHT);
+            builder.add(document, category.getDescription(), DESCRIPTION_WEIGHT);
+            document++;
+        }
+        SearchIndex index = builder.build();
+
+        // written next to the index and renamed, a reader never sees half a file
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(emoji.size());
+            for (String s : emoji) {
+                byte[] bytes = s.getBytes(UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            index.write(out);
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Can not rename " + temp + " to " + file);
+        }
+        if (DLog.DEBUG) {
+            DLog.d(TAG, "build: " + document + " documents in " + (System.currentTimeMillis() - time) + "ms");
+        }
+    }
+
+    /**
+     * @return the emoji whose description matches the query, best first
+     */
+    @NonNull
+    public ArrayList<String> searchEmoji(CharSequence query, int limit) {
+        ArrayList<String> result = new ArrayList<>();
+        for (int document : index.search(query, Integer.MAX_VALUE)) {
+            if (document < emoji.length) {
+                result.add(emoji[document]);
+                if (result.size() == limit) break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the positions, in the order of the asset files, of the emoticon categories whose
+     * title or description matches the query, best first
+     */
+    @NonNull
+    public ArrayList<Integer> searchEmoticonCategories(CharSequence query) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int document : index.search(query, Integer.MAX_VALUE)) {
+            if (document >= emoji.length) result.add(document - emoji.length);
+        }
+        return result;
+    }
+}
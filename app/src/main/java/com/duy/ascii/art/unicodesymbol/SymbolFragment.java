@@ -108,8 +108,9 @@ public class SymbolFragment extends SimpleFragment {
             @Override
             public void onClick(View v) {
                 if (!mEditInput.getText().toString().isEmpty()) {
-                    mDatabasePresenter.insert(new TextItem(mEditInput.getText().toString()));
-                    Toast.makeText(getContext(), R.string.added_to_favorite, Toast.LENGTH_SHORT).show();
+                    boolean added = mDatabasePresenter.insert(new TextItem(mEditInput.getText().toString()));
+                    Toast.makeText(getContext(), added ? R.string.added_to_favorite : R.string.already_favorite,
+                            Toast.LENGTH_SHORT).show();
                 }
             }
         });
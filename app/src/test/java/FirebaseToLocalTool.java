@@ -16,6 +16,7 @@
  */
 
 import com.duy.ascii.art.asciiart.model.TextArt;
+import com.duy.ascii.art.search.NearDuplicateIndex;
 import com.duy.ascii.art.utils.FileUtil;
 
 import junit.framework.TestCase;
@@ -64,9 +65,19 @@ public class FirebaseToLocalTool extends TestCase {
         JSONObject jsonObject = new JSONObject(IOUtils.toString(in));
         JSONArray array = jsonObject.getJSONArray(TextArt.KEY_ROOT);
 
+        NearDuplicateIndex duplicates = new NearDuplicateIndex();
+        for (int i = 0; i < array.length(); i++) {
+            duplicates.add(array.getJSONObject(i).getString("content"));
+        }
         Matcher matcher = FileUtil.PATTERN_SPLIT.matcher(IOUtils.toString(new FileInputStream("./app/src/main/assets/image.txt")));
         while (matcher.find()) {
             String value = matcher.group(2);
+            int duplicate = duplicates.findDuplicate(value);
+            if (duplicate >= 0) {
+                System.out.println("skip, nearly the same as " + duplicate + ": " + value);
+                continue;
+            }
+            duplicates.add(value);
             JSONObject item = new JSONObject();
             item.put("category", 0);
             item.put("time", 0L);
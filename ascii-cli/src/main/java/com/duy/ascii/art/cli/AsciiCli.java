@@ -0,0 +1,419 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.cli;
+
+import com.duy.ascii.art.bigtext.BigFontGenerator;
+import com.duy.ascii.art.database.FileResourceLoader;
+import com.duy.ascii.art.database.ResourceLoader;
+import com.duy.ascii.art.figlet.Alignment;
+import com.duy.ascii.art.figlet.FigletModel;
+import com.duy.ascii.art.image.converter.AsciiConverter;
+import com.duy.ascii.art.image.converter.AsciiConverter.ColorType;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Command line front end of the conversion engines, for pre-generating output in bulk.
+ * <p>
+ * Every input line (figlet, big text) or image is rendered with every selected font or color
+ * type and written to the output directory. Work is spread over all cores through a bounded
+ * queue; when the queue is full the reading thread renders the job itself, so input is never
+ * read much faster than it can be rendered. Ctrl+C stops reading input, lets the jobs in flight
+ * finish and prints the statistics.
+ */
+public class AsciiCli {
+    static final String USAGE = "usage: ascii-cli <figlet|bigtext|image> [options] [inputs...]\n" +
+            "  --assets <dir>    assets directory of the app (default app/src/main/assets)\n" +
+            "  --out <dir>       output directory (default out)\n" +
+            "  --format <name>   text, ansi, png or html (default text)\n" +
+            "  --fonts <a,b,..>  figlet font files or big text font indexes (default all)\n" +
+            "  --colors <a,b,..> NONE, ANSI_COLOR or FULL_COLOR for images (default ANSI_COLOR)\n" +
+            "  --columns <n>     width of converted images in characters (default 120)\n" +
+            "  --width <n>       wrap text to n columns (default 0, no wrapping)\n" +
+            "  --align <name>    left, center or right for wrapped text (default left)\n" +
+            "  --threads <n>     worker threads (default number of cores)\n" +
+            "Text inputs are read line by line, every line is one job. Without inputs, or\n" +
+            "with \"-\", stdin is read.";
+    // character cells are 70% as wide as they are high, see AsciiRenderer
+    private static final float CHAR_ASPECT = 0.7f / 0.9f;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Options options;
+    private final PrintStream log;
+    private final AtomicInteger written = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final Map<String, FigletModel> figletFonts = new LinkedHashMap<>();
+    private final BigFontGenerator bigFonts = new BigFontGenerator();
+    private final List<Integer> bigFontIndexes = new ArrayList<>();
+    private volatile boolean cancelled;
+    private ThreadPoolExecutor executor;
+    private long startTime;
+
+    AsciiCli(Options options, PrintStream log) {
+        this.options = options;
+        this.log = log;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(USAGE);
+            return;
+        }
+        final AsciiCli cli = new AsciiCli(options, System.err);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                cli.shutdown();
+            }
+        });
+        int failed = cli.run();
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * @return number of failed outputs
+     */
+    int run() throws IOException, InterruptedException {
+        try {
+            if (!options.out.isDirectory() && !options.out.mkdirs()) {
+                throw new IOException("Can not create " + options.out);
+            }
+            ResourceLoader loader = new FileResourceLoader(options.assets);
+            loadFonts(loader);
+
+            executor = new ThreadPoolExecutor(options.threads, options.threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(options.threads * 4),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            startTime = System.nanoTime();
+            Timer timer = new Timer("progress", true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    log.println(getStatistics());
+                }
+            }, 5000, 5000);
+
+            try {
+                List<String> inputs = options.inputs.isEmpty() ? Arrays.asList("-") : options.inputs;
+                for (int i = 0; i < inputs.size() && !cancelled; i++) {
+                    submitInput(inputs.get(i));
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                timer.cancel();
+            }
+            log.println(getStatistics());
+            return failed.get();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Called from the shutdown hook, for example on SIGINT
+     */
+    void shutdown() {
+        if (finished.getCount() == 0) return;
+        cancelled = true;
+        log.println("Interrupted, waiting for running jobs...");
+        try {
+            finished.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    String getStatistics() {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        int queued = executor == null ? 0 : executor.getQueue().size();
+        return String.format(Locale.US, "%d outputs, %d failed, %.1f s, %.1f outputs/s, %d queued",
+                written.get(), failed.get(), seconds, seconds > 0 ? written.get() / seconds : 0, queued);
+    }
+
+    private void loadFonts(ResourceLoader loader) throws IOException {
+        switch (options.mode) {
+            case FIGLET: {
+                List<String> names = options.fonts.isEmpty()
+                        ? Arrays.asList(loader.list("fonts")) : options.fonts;
+                for (String name : names) {
+                    figletFonts.put(name, new FigletModel(loader.open("fonts/" + name)));
+                }
+                break;
+            }
+            case BIGTEXT: {
+                String[] names = loader.list("bigtext_json");
+                InputStream[] streams = new InputStream[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    streams[i] = loader.open("bigtext_json/" + names[i]);
+                }
+                bigFonts.load(streams);
+                for (InputStream stream : streams) {
+                    stream.close();
+                }
+                if (options.fonts.isEmpty()) {
+                    for (int i = 0; i < bigFonts.getSize(); i++) bigFontIndexes.add(i);
+                } else {
+                    for (String index : options.fonts) bigFontIndexes.add(Integer.parseInt(index));
+                }
+                break;
+            }
+        }
+    }
+
+    private void submitInput(String input) throws IOException {
+        boolean stdin = "-".equals(input);
+        if (options.mode == Mode.IMAGE) {
+            final String name = stdin ? "stdin" : baseName(new File(input));
+            final byte[] data;
+            InputStream in = stdin ? System.in : new FileInputStream(input);
+            try {
+                data = IOUtils.toByteArray(in);
+            } finally {
+                if (!stdin) in.close();
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    convertImage(name, data);
+                }
+            });
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                stdin ? System.in : new FileInputStream(input), "UTF-8"));
+        try {
+            String line;
+            int lineNumber = 0;
+            String prefix = stdin ? "" : baseName(new File(input)) + "_";
+            while (!cancelled && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) continue;
+                final String text = line;
+                final String name = prefix + String.format(Locale.US, "%06d", lineNumber);
+                if (options.mode == Mode.FIGLET) {
+                    for (final Map.Entry<String, FigletModel> font : figletFonts.entrySet()) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                write(name + "_" + baseName(new File(font.getKey())), new Callable<String>() {
+                                    @Override
+                                    public String call() {
+                                        FigletModel model = font.getValue();
+                                        return options.width > 0
+                                                ? model.convert(text, options.width, options.align)
+                                                : model.convert(text);
+                                    }
+                                });
+                            }
+                        });
+                    }
+                } else {
+                    for (final int index : bigFontIndexes) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                write(name + "_big" + index, new Callable<String>() {
+                                    @Override
+                                    public String call() {
+                                        return options.width > 0
+                                                ? bigFonts.convert(text, index, options.width, options.align)
+                                                : bigFonts.convert(text, index);
+                                    }
+                                });
+                            }
+                        });
+                    }
+                }
+            }
+        } finally {
+            if (!stdin) reader.close();
+        }
+    }
+
+    /**
+     * Converts and writes one output. The conversion runs here, inside the try, so a text a font
+     * can not render fails only its own output, on a pool thread or on the reader thread when
+     * the queue is full
+     */
+    private void write(String name, Callable<String> conversion) {
+        if (cancelled) return;
+        try {
+            String text = conversion.call();
+            FileUtils.writeByteArrayToFile(new File(options.out, name + "." + options.format.extension),
+                    options.format.renderText(text));
+            written.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.println("error: " + name + ": " + e);
+        }
+    }
+
+    private void convertImage(String name, byte[] data) {
+        if (cancelled) return;
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+            if (image == null) {
+                throw new IOException("Unsupported image format");
+            }
+            int columns = options.columns;
+            int rows = Math.max(1, Math.round(columns * CHAR_ASPECT * image.getHeight() / image.getWidth()));
+            AsciiConverter converter = new AsciiConverter();
+            for (ColorType colorType : options.colors) {
+                if (cancelled) return;
+                AsciiConverter.Result result = converter.computeResultForBitmap(
+                        new BufferedImagePixelSource(image), rows, columns, colorType);
+                String fileName = name + "_" + colorType.name().toLowerCase(Locale.US) + "." + options.format.extension;
+                FileUtils.writeByteArrayToFile(new File(options.out, fileName), options.format.renderImage(result));
+                written.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.println("error: " + name + ": " + e);
+        }
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    enum Mode {
+        FIGLET, BIGTEXT, IMAGE
+    }
+
+    static class Options {
+        Mode mode;
+        File assets = new File("app/src/main/assets");
+        File out = new File("out");
+        OutputFormat format = OutputFormat.TEXT;
+        List<String> fonts = new ArrayList<>();
+        List<ColorType> colors = new ArrayList<>();
+        int columns = 120;
+        int width;
+        Alignment align = Alignment.LEFT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> inputs = new ArrayList<>();
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h":
+                    case "--help":
+                        options.help = true;
+                        return options;
+                    case "--assets":
+                        options.assets = new File(value(args, ++i, arg));
+                        break;
+                    case "--out":
+                        options.out = new File(value(args, ++i, arg));
+                        break;
+                    case "--format":
+                        options.format = OutputFormat.parse(value(args, ++i, arg));
+                        break;
+                    case "--fonts":
+                        options.fonts.addAll(Arrays.asList(value(args, ++i, arg).split(",")));
+                        break;
+                    case "--colors":
+                        for (String color : value(args, ++i, arg).split(",")) {
+                            options.colors.add(ColorType.valueOf(color.toUpperCase(Locale.US)));
+                        }
+                        break;
+                    case "--columns":
+                        options.columns = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--width":
+                        options.width = Math.max(0, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--align":
+                        options.align = Alignment.valueOf(value(args, ++i, arg).toUpperCase(Locale.US));
+                        break;
+                    case "--threads":
+                        options.threads = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        }
+                        if (options.mode == null) {
+                            options.mode = Mode.valueOf(arg.toUpperCase(Locale.US));
+                        } else {
+                            options.inputs.add(arg);
+                        }
+                }
+            }
+            if (options.mode == null) {
+                throw new IllegalArgumentException("Missing mode");
+            }
+            if (options.colors.isEmpty()) {
+                options.colors.add(ColorType.ANSI_COLOR);
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.cli;
+
+import com.duy.ascii.art.image.converter.PixelSource;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Lets {@link com.duy.ascii.art.image.converter.AsciiConverter} read a Java2D image.
+ */
+public class BufferedImagePixelSource implements PixelSource {
+    private final BufferedImage image;
+
+    public BufferedImagePixelSource(BufferedImage image) {
+        this.image = image;
+    }
+
+    @Override
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    @Override
+    public void getPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        image.getRGB(x, y, width, height, pixels, offset, stride);
+    }
+}
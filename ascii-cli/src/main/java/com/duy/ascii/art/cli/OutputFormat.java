@@ -0,0 +1,221 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.cli;
+
+import com.duy.ascii.art.image.converter.AsciiConverter;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The file types the command line tool can write. Text art (figlet, big text) has no color, so
+ * {@link #ANSI} writes it like {@link #TEXT}; converted images keep their colors in every format
+ * except {@link #TEXT}.
+ */
+public enum OutputFormat {
+    TEXT("txt", "text/plain; charset=utf-8"),
+    ANSI("ans", "text/plain; charset=utf-8"),
+    PNG("png", "image/png"),
+    HTML("html", "text/html; charset=utf-8");
+
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final int PADDING = 8;
+
+    public final String extension;
+    public final String contentType;
+
+    OutputFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public static OutputFormat parse(String name) {
+        return valueOf(name.toUpperCase(Locale.US));
+    }
+
+    private static byte[] utf8(String content) throws IOException {
+        return content.getBytes("UTF-8");
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String escapeHtml(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String html(String body, String style) {
+        return "<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"></head>\n<body style=\"" + style + "\">"
+                + "<pre style=\"font-family:monospace;line-height:1\">" + body + "</pre></body></html>\n";
+    }
+
+    private static BufferedImage createImage(int columns, int rows, Color background) {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = probe.createGraphics();
+        FontMetrics metrics = g.getFontMetrics(FONT);
+        int width = Math.max(1, columns * metrics.charWidth('M')) + 2 * PADDING;
+        int height = Math.max(1, rows * metrics.getHeight()) + 2 * PADDING;
+        g.dispose();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    private static Graphics2D textGraphics(BufferedImage image) {
+        Graphics2D graphics = image.createGraphics();
+        graphics.setFont(FONT);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return graphics;
+    }
+
+    /**
+     * Encodes figlet or big text output
+     */
+    public byte[] renderText(String text) throws IOException {
+        switch (this) {
+            case TEXT:
+            case ANSI:
+                return utf8(text);
+            case HTML:
+                return utf8(html(escapeHtml(text), "background:#fff;color:#000"));
+            case PNG:
+                String[] lines = text.split("\r?\n");
+                int columns = 0;
+                for (String line : lines) {
+                    columns = Math.max(columns, line.length());
+                }
+                BufferedImage image = createImage(columns, lines.length, Color.WHITE);
+                Graphics2D graphics = textGraphics(image);
+                FontMetrics metrics = graphics.getFontMetrics();
+                graphics.setColor(Color.BLACK);
+                for (int i = 0; i < lines.length; i++) {
+                    graphics.drawString(lines[i], PADDING, PADDING + i * metrics.getHeight() + metrics.getAscent());
+                }
+                graphics.dispose();
+                return png(image);
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Encodes a converted image
+     */
+    public byte[] renderImage(AsciiConverter.Result result) throws IOException {
+        boolean color = result.getColorType() != AsciiConverter.ColorType.NONE;
+        switch (this) {
+            case TEXT: {
+                StringBuilder builder = new StringBuilder((result.columns + 1) * result.rows);
+                for (int row = 0; row < result.rows; row++) {
+                    for (int col = 0; col < result.columns; col++) {
+                        builder.append(result.stringAtRowColumn(row, col));
+                    }
+                    builder.append('\n');
+                }
+                return utf8(builder.toString());
+            }
+            case ANSI: {
+                StringBuilder builder = new StringBuilder();
+                for (int row = 0; row < result.rows; row++) {
+                    int lastColor = 0;
+                    for (int col = 0; col < result.columns; col++) {
+                        int rgb = result.colorAtRowColumn(row, col);
+                        if (color && rgb != lastColor) {
+                            builder.append("\u001b[38;2;").append((rgb >> 16) & 0xff).append(';')
+                                    .append((rgb >> 8) & 0xff).append(';').append(rgb & 0xff).append('m');
+                            lastColor = rgb;
+                        }
+                        builder.append(result.stringAtRowColumn(row, col));
+                    }
+                    if (color) builder.append("\u001b[0m");
+                    builder.append('\n');
+                }
+                return utf8(builder.toString());
+            }
+            case HTML: {
+                StringBuilder builder = new StringBuilder();
+                for (int row = 0; row < result.rows; row++) {
+                    for (int col = 0; col < result.columns; col++) {
+                        String text = escapeHtml(result.stringAtRowColumn(row, col));
+                        if (color) {
+                            builder.append(String.format("<span style=\"color:#%06x\">", result.colorAtRowColumn(row, col) & 0xffffff))
+                                    .append(text).append("</span>");
+                        } else {
+                            builder.append(text);
+                        }
+                    }
+                    builder.append('\n');
+                }
+                return utf8(html(builder.toString(), "background:#000;color:#fff"));
+            }
+            case PNG: {
+                BufferedImage image = createImage(result.columns, result.rows, Color.BLACK);
+                Graphics2D graphics = textGraphics(image);
+                FontMetrics metrics = graphics.getFontMetrics();
+                int charWidth = metrics.charWidth('M');
+                for (int row = 0; row < result.rows; row++) {
+                    int y = PADDING + row * metrics.getHeight() + metrics.getAscent();
+                    for (int col = 0; col < result.columns; col++) {
+                        graphics.setColor(new Color(result.colorAtRowColumn(row, col)));
+                        graphics.drawString(result.stringAtRowColumn(row, col), PADDING + col * charWidth, y);
+                    }
+                }
+                graphics.dispose();
+                return png(image);
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.cli;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsciiCliTest {
+    private static final File ASSETS = new File("../app/src/main/assets");
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ascii-cli").toFile();
+        dir.deleteOnExit();
+    }
+
+    private int run(String... args) throws Exception {
+        AsciiCli.Options options = AsciiCli.Options.parse(args);
+        options.assets = ASSETS;
+        options.out = new File(dir, "out");
+        return new AsciiCli(options, new PrintStream(new ByteArrayOutputStream())).run();
+    }
+
+    @Test
+    public void figlet() throws Exception {
+        File input = new File(dir, "input.txt");
+        FileUtils.writeStringToFile(input, "hello\n\nworld\n", "UTF-8");
+        assertEquals(0, run("figlet", "--fonts", "standard.font,banner3.font", input.getPath()));
+        String[] files = new File(dir, "out").list();
+        assertEquals(4, files.length);
+        String hello = FileUtils.readFileToString(new File(dir, "out/input_000001_standard.txt"), "UTF-8");
+        assertTrue(hello.contains("_"));
+    }
+
+    @Test
+    public void bigText() throws Exception {
+        File input = new File(dir, "input.txt");
+        FileUtils.writeStringToFile(input, "abc\n", "UTF-8");
+        assertEquals(0, run("bigtext", "--fonts", "0,1", "--format", "html", input.getPath()));
+        assertTrue(new File(dir, "out/input_000001_big0.html").isFile());
+        assertTrue(new File(dir, "out/input_000001_big1.html").isFile());
+    }
+
+    @Test
+    public void lineAFontCanNotRenderDoesNotStopTheBatch() throws Exception {
+        File input = new File(dir, "input.txt");
+        FileUtils.writeStringToFile(input, "abc\nh\u00E9llo ~ world\nxyz\n", "UTF-8");
+        // one thread and a queue of four, most jobs run on the reading thread
+        int failed = run("bigtext", "--fonts", "0,1", "--threads", "1", input.getPath());
+        assertTrue(new File(dir, "out/input_000001_big1.txt").isFile());
+        assertTrue(new File(dir, "out/input_000003_big0.txt").isFile());
+        assertTrue(new File(dir, "out/input_000003_big1.txt").isFile());
+        assertEquals(6, new File(dir, "out").list().length + failed);
+    }
+
+    @Test
+    public void image() throws Exception {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, x * 4 << 16 | y * 5);
+            }
+        }
+        File input = new File(dir, "gradient.png");
+        ImageIO.write(image, "png", input);
+        assertEquals(0, run("image", "--colors", "NONE,FULL_COLOR", "--columns", "40",
+                "--format", "png", input.getPath()));
+        assertTrue(ImageIO.read(new File(dir, "out/gradient_none.png")).getWidth() > 40);
+        assertTrue(new File(dir, "out/gradient_full_color.png").isFile());
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.duy.ascii.art.bigtext;
+
+import com.duy.ascii.art.database.JsonBridge;
+import com.duy.ascii.art.database.JsonReader;
+import com.duy.ascii.art.database.ResourceLoader;
+import com.duy.ascii.art.figlet.Alignment;
+import com.duy.ascii.art.figlet.CoverageIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Created by Duy on 07-Jul-17.
+ */
+
+public class BigFontGenerator {
+    private static final String LATIN_CHAR = "ABCDEF";
+    /* width of a space for fonts without a glyph for it */
+    private static final int SPACE_WIDTH = 2;
+    private boolean loaded = false;
+    /* every font is parsed by the first thread that needs it */
+    private ArrayList<FutureTask<Glyphs>> fonts;
+    private CoverageIndex coverage = new CoverageIndex(0);
+    /* positions of the fonts in the coverage index, guarded by it */
+    private BitSet parsed = new BitSet();
+
+    public BigFontGenerator() {
+        fonts = new ArrayList<>();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void load(InputStream[] inputStream) {
+        for (int i = 0; i < inputStream.length; i++) {
+            InputStream stream = inputStream[i];
+            try {
+                final Glyphs glyphs = new Glyphs(JsonBridge.newReader(stream));
+                FutureTask<Glyphs> font = new FutureTask<>(new Callable<Glyphs>() {
+                    @Override
+                    public Glyphs call() {
+                        return glyphs;
+                    }
+                });
+                font.run();
+                fonts.add(font);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        coverage = new CoverageIndex(fonts.size());
+        for (int i = 0; i < fonts.size(); i++) {
+            getGlyphs(i).addTo(coverage, i);
+            parsed.set(i);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Uses the fonts of the files in the directory without reading them: every font is parsed
+     * when it is first used, or by {@link #load(int)}, so fonts can be loaded in parallel and
+     * used as soon as each one is ready.
+     */
+    public void load(final ResourceLoader loader, final String directory) throws IOException {
+        String[] names = loader.list(directory);
+        coverage = new CoverageIndex(names.length);
+        for (int i = 0; i < names.length; i++) {
+            final String path = directory + "/" + names[i];
+            final int position = i;
+            fonts.add(new FutureTask<>(new Callable<Glyphs>() {
+                @Override
+                public Glyphs call() throws Exception {
+                    InputStream stream = loader.open(path);
+                    try {
+                        Glyphs glyphs = new Glyphs(JsonBridge.newReader(stream));
+                        synchronized (coverage) {
+                            glyphs.addTo(coverage, position);
+                            parsed.set(position);
+                        }
+                        return glyphs;
+                    } finally {
+                        stream.close();
+                    }
+                }
+            }));
+        }
+        loaded = true;
+    }
+
+    /**
+     * @return true if the font at this position is parsed
+     */
+    public boolean isLoaded(int position) {
+        return fonts.get(position).isDone();
+    }
+
+    /**
+     * Parses the font at this position in this thread, or waits for the thread that parses it
+     *
+     * @throws IllegalStateException if the font can not be read
+     */
+    public void load(int position) {
+        getGlyphs(position);
+    }
+
+    private Glyphs getGlyphs(int position) {
+        FutureTask<Glyphs> font = fonts.get(position);
+        font.run();
+        try {
+            return font.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading font " + position);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Can not load font " + position, e.getCause());
+        }
+    }
+
+    public int getSize() {
+        return fonts.size();
+    }
+
+    /**
+     * @return positions of the loaded fonts that have a glyph for every character of the text
+     * that any loaded font has a glyph for; the other characters fall back in every font, see
+     * {@link Glyphs#get(char)}
+     */
+    public BitSet getFonts(CharSequence text) {
+        synchronized (coverage) {
+            StringBuilder covered = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = Character.codePointAt(text, i);
+                i += Character.charCount(codePoint);
+                if (coverage.contains(codePoint)) covered.appendCodePoint(codePoint);
+            }
+            BitSet result = coverage.getFonts(covered);
+            result.and(parsed);
+            return result;
+        }
+    }
+
+    /**
+     * Convert simple text to big text
+     *
+     * @param text     - input
+     * @param position - font position
+     * @return the big text, the lines of text are separated by a new line
+     */
+    public String convert(String text, int position) {
+        Glyphs font = getGlyphs(position);
+        if (text.indexOf('\n') < 0) {
+            return convert(font, text);
+        }
+        // every line of text is a block of rows, as in the wrapped conversion
+        StringBuilder result = new StringBuilder();
+        int start = 0;
+        while (true) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) end = text.length();
+            if (start > 0) result.append('\n');
+            if (end == start) {
+                for (int j = 1; j < font.height; j++) result.append('\n');
+            } else {
+                result.append(convert(font, text.substring(start, end)));
+            }
+            if (end == text.length()) break;
+            start = end + 1;
+        }
+        return result.toString();
+    }
+
+    private static String convert(Glyphs font, String text) {
+        int length = text.length();
+        if (length == 0) return "";
+        char[][][] glyphs = new char[length][][];
+        int size = font.height - 1;
+        for (int i = 0; i < length; i++) {
+            glyphs[i] = font.get(text.charAt(i));
+            for (char[] row : glyphs[i]) size += row.length;
+        }
+
+        char[] result = new char[size];
+        int offset = 0;
+        for (int j = 0; j < font.height; j++) {
+            if (j > 0) result[offset++] = '\n';
+            for (int i = 0; i < length; i++) {
+                char[] row = glyphs[i][j];
+                System.arraycopy(row, 0, result, offset, row.length);
+                offset += row.length;
+            }
+        }
+        return new String(result);
+    }
+
+    /**
+     * Convert simple text to big text wrapped to lines of at most maxWidth columns. Lines are
+     * broken at the last space that fits and at new lines, words wider than a line are broken
+     * between glyphs. Every glyph is padded to its widest row so the wrapped lines line up.
+     *
+     * @param text     - input
+     * @param position - font position
+     * @return the big text, the lines of text are separated by a new line
+     */
+    public String convert(String text, int position, int maxWidth, Alignment alignment) {
+        Glyphs font = getGlyphs(position);
+        int length = text.length();
+        char[][][] glyphs = new char[length][][];
+        // offsets[i] is the width of the glyphs before i, spaces and new lines included
+        int[] offsets = new int[length + 1];
+        int height = font.height;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int width = 0;
+            if (c != '\n') {
+                glyphs[i] = font.get(c);
+                for (char[] row : glyphs[i]) width = Math.max(width, row.length);
+            }
+            offsets[i + 1] = offsets[i] + width;
+        }
+
+        StringBuilder result = new StringBuilder();
+        int start = 0;
+        boolean wrapped = false;
+        while (true) {
+            if (wrapped) {
+                // spaces at a soft break are dropped
+                while (start < length && text.charAt(start) == ' ') start++;
+                if (start == length) break;
+            }
+            int end = start;
+            int lastSpace = -1;
+            while (end < length && text.charAt(end) != '\n') {
+                if (text.charAt(end) == ' ') {
+                    lastSpace = end;
+                } else if (end > start && offsets[end + 1] - offsets[start] > maxWidth) {
+                    break;
+                }
+                end++;
+            }
+            int next;
+            if (end == length || text.charAt(end) == '\n') {
+                next = end + 1;
+                wrapped = false;
+            } else {
+                end = lastSpace > start ? lastSpace : end;
+                next = end;
+                wrapped = true;
+            }
+            while (end > start && text.charAt(end - 1) == ' ') end--;
+
+            if (start > 0) result.append('\n');
+            int indent = alignment.indent(offsets[end] - offsets[start], maxWidth);
+            for (int j = 0; j < height; j++) {
+                if (j > 0) result.append('\n');
+                for (int k = 0; k < indent; k++) result.append(' ');
+                for (int i = start; i < end; i++) {
+                    int column = 0;
+                    if (glyphs[i] != null) {
+                        result.append(glyphs[i][j]);
+                        column = glyphs[i][j].length;
+                    }
+                    for (int width = offsets[i + 1] - offsets[i]; column < width; column++) {
+                        result.append(' ');
+                    }
+                }
+            }
+            if (next > length) break;
+            start = next;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates a rendering of the text with the font at this position that follows edits of
+     * the text
+     */
+    public Line newLine(int position) {
+        return new Line(getGlyphs(position));
+    }
+
+    /**
+     * Rendered rows of one line of text that are kept between edits: appending characters
+     * appends their glyph rows only and removing characters from the end truncates the rows to
+     * the lengths they had before. Text with new lines is converted by
+     * {@link #convert(String, int)}.
+     */
+    public static class Line {
+        private final Glyphs font;
+        private final StringBuilder text = new StringBuilder();
+        /* created with the first glyph */
+        private StringBuilder[] rows;
+        /* length of every row before every character of text */
+        private int[] checkpoints = new int[0];
+
+        private Line(Glyphs font) {
+            this.font = font;
+        }
+
+        /**
+         * Changes the text to the given one, keeping the longest common prefix
+         */
+        public synchronized void setText(CharSequence newText) {
+            int common = 0;
+            int max = Math.min(text.length(), newText.length());
+            while (common < max && text.charAt(common) == newText.charAt(common)) common++;
+            truncate(common);
+            for (int i = common; i < newText.length(); i++) {
+                append(newText.charAt(i));
+            }
+        }
+
+        public synchronized void append(char c) {
+            char[][] glyph = font.get(c);
+            if (rows == null) {
+                rows = new StringBuilder[font.height];
+                for (int j = 0; j < rows.length; j++) rows[j] = new StringBuilder();
+            }
+            int index = text.length();
+            if ((index + 1) * rows.length > checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, Math.max(16, (index + 1) * rows.length * 2));
+            }
+            for (int j = 0; j < rows.length; j++) {
+                checkpoints[index * rows.length + j] = rows[j].length();
+                rows[j].append(glyph[j]);
+            }
+            text.append(c);
+        }
+
+        /**
+         * Removes the characters after the first count ones
+         */
+        public synchronized void truncate(int count) {
+            if (count >= text.length()) return;
+            for (int j = 0; j < rows.length; j++) {
+                rows[j].setLength(checkpoints[count * rows.length + j]);
+            }
+            text.setLength(count);
+        }
+
+        public synchronized String getText() {
+            return text.toString();
+        }
+
+        /**
+         * @return the rendered rows, in the format of {@link #convert(String, int)}
+         */
+        @Override
+        public synchronized String toString() {
+            if (text.length() == 0) return "";
+            StringBuilder result = new StringBuilder();
+            for (int j = 0; j < rows.length; j++) {
+                if (j > 0) result.append('\n');
+                result.append(rows[j]);
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * Glyph rows of a font, split when the font is loaded. Every glyph has the height of the
+     * font, missing rows are empty. A font without a space gets a blank one, and a character
+     * without a glyph (the bundled fonts have letters only) is drawn as itself on the middle row.
+     */
+    private static class Glyphs {
+        private final char[][][] ascii = new char[128][][];
+        /* glyphs of the characters beyond ASCII, usually none */
+        private final HashMap<Character, char[][]> others = new HashMap<>();
+        private int height;
+
+        /**
+         * Streams the glyphs of the font file, the json object of a glyph is never built
+         */
+        Glyphs(JsonReader reader) throws IOException {
+            ArrayList<String> keys = new ArrayList<>();
+            ArrayList<String[]> glyphRows = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if (key.length() != 1) {
+                    reader.skipValue();
+                    continue;
+                }
+                // a glyph of font5 starts with a stray line break, blank rows are never empty
+                String[] rows = reader.nextString().replaceFirst("^(\\r?\\n)+", "").split("\\r?\\n");
+                keys.add(key);
+                glyphRows.add(rows);
+                height = Math.max(height, rows.length);
+            }
+            reader.endObject();
+            for (int i = 0; i < keys.size(); i++) {
+                String[] rows = glyphRows.get(i);
+                char[][] glyph = new char[height][];
+                for (int j = 0; j < height; j++) {
+                    glyph[j] = j < rows.length ? rows[j].toCharArray() : new char[0];
+                }
+                put(keys.get(i).charAt(0), glyph);
+            }
+            // the text is upper cased before conversion, lower case letters get the upper case glyph
+            for (int i = 0; i < keys.size(); i++) {
+                char c = keys.get(i).charAt(0);
+                char lower = Character.toLowerCase(c);
+                if (Character.isUpperCase(c) && !has(lower)) put(lower, get(c));
+            }
+            if (!has(' ')) {
+                char[][] space = new char[height][SPACE_WIDTH];
+                for (char[] row : space) Arrays.fill(row, ' ');
+                put(' ', space);
+            }
+        }
+
+        private void put(char c, char[][] glyph) {
+            if (c < ascii.length) {
+                ascii[c] = glyph;
+            } else {
+                others.put(c, glyph);
+            }
+        }
+
+        boolean has(char c) {
+            return (c < ascii.length ? ascii[c] : others.get(c)) != null;
+        }
+
+        char[][] get(char c) {
+            char[][] glyph = c < ascii.length ? ascii[c] : others.get(c);
+            if (glyph == null) {
+                // one column wide, so the halves of a surrogate pair stay together
+                glyph = new char[height][];
+                for (int j = 0; j < height; j++) {
+                    glyph[j] = new char[]{j == height / 2 ? c : ' '};
+                }
+            }
+            return glyph;
+        }
+
+        void addTo(CoverageIndex coverage, int font) {
+            for (char c = 0; c < ascii.length; c++) {
+                if (ascii[c] != null) coverage.add(font, c);
+            }
+            for (Character c : others.keySet()) {
+                coverage.add(font, c);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import org.apache.commons.io.IOUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The emoji and emoticon catalogues of the assets compiled into one binary file, so that the
+ * categories can be listed without parsing hundreds of json files.
+ * <pre>
+ * int magic, int version, int catalogue count
+ * table of contents: for every catalogue its name, int fields per entry, int category count and
+ * for every category its title, description, int entry count and int offset of its entries
+ * entries: for every entry every field
+ * </pre>
+ * Every string is a short length followed by its UTF-8 bytes. Opening a pack reads the table of
+ * contents only; the entries of a category are decoded the first time they are asked for.
+ * <p>
+ * Build step: java CataloguePack &lt;assets dir&gt; &lt;pack file&gt;
+ */
+public class CataloguePack {
+    public static final String EMOJI = "emoji";
+    public static final String EMOTICONS = "emoticons";
+    /**
+     * Fields of an emoji entry, see {@link Category#get(int, int)}
+     */
+    public static final int EMOJI_CHARACTER = 0;
+    public static final int EMOJI_DESCRIPTION = 1;
+
+    private static final int MAGIC = 0x43544c47; // CTLG
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String DATA = "data";
+    /**
+     * Json keys of the fields of an entry, an empty list for entries that are plain strings
+     */
+    private static final String[] EMOJI_KEYS = {"emoji", "desc"};
+    private static final String[] EMOTICON_KEYS = {};
+
+    private final Map<String, List<Category>> catalogues = new LinkedHashMap<>();
+
+    public CataloguePack(ByteBuffer buffer) throws IOException {
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a catalogue pack");
+        }
+        int catalogueCount = header.getInt();
+        for (int i = 0; i < catalogueCount; i++) {
+            String name = readString(header);
+            int fields = header.getInt();
+            Category[] categories = new Category[header.getInt()];
+            for (int j = 0; j < categories.length; j++) {
+                String title = readString(header);
+                String description = readString(header);
+                int size = header.getInt();
+                categories[j] = new Category(buffer, header.getInt(), title, description, size, fields);
+            }
+            catalogues.put(name, Collections.unmodifiableList(Arrays.asList(categories)));
+        }
+    }
+
+    /**
+     * Maps the pack file into memory
+     */
+    public static CataloguePack map(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the file is closed
+            return new CataloguePack(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the whole pack with one read, for packs that can not be mapped
+     */
+    public static CataloguePack read(InputStream in) throws IOException {
+        return new CataloguePack(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Compiles the json files of the catalogues in memory, for builds without the pack
+     */
+    public static CataloguePack build(ResourceLoader assets) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(assets, out);
+        return new CataloguePack(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Compiles the json files of assets/emoji and assets/emoticons, categories keep the order of
+     * the file names
+     */
+    public static void write(ResourceLoader assets, OutputStream out) throws IOException {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entries);
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        DataOutputStream contentsOut = new DataOutputStream(contents);
+        // offsets are written relative to the entries and moved behind the contents at the end
+        List<Integer> offsetPositions = new ArrayList<>();
+
+        String[] names = {EMOJI, EMOTICONS};
+        String[][] keys = {EMOJI_KEYS, EMOTICON_KEYS};
+        for (int i = 0; i < names.length; i++) {
+            String[] files = assets.list(names[i]);
+            writeString(contentsOut, names[i]);
+            contentsOut.writeInt(Math.max(1, keys[i].length));
+            contentsOut.writeInt(files.length);
+            for (String fileName : files) {
+                JsonReader reader = JsonBridge.openReader(assets, names[i] + "/" + fileName);
+                try {
+                    writeCategory(reader, keys[i], contentsOut, entriesOut, offsetPositions);
+                } catch (IOException e) {
+                    throw new IOException("Can not read " + names[i] + "/" + fileName, e);
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+        contentsOut.flush();
+        entriesOut.flush();
+
+        int headerSize = 12;
+        ByteBuffer toc = ByteBuffer.wrap(contents.toByteArray());
+        int entriesStart = headerSize + toc.capacity();
+        for (int position : offsetPositions) {
+            toc.putInt(position, entriesStart + toc.getInt(position));
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.length);
+        data.write(toc.array());
+        entries.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Streams the entries of a category file as they are read; its title, description and the
+     * position of its entries go to the table of contents when the file is done, the keys of the
+     * file can come in any order
+     */
+    private static void writeCategory(JsonReader reader, final String[] keys, DataOutputStream contents,
+                                      final DataOutputStream entries, List<Integer> offsetPositions) throws IOException {
+        String title = null;
+        String description = "";
+        int offset = entries.size();
+        int size = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(TITLE)) {
+                title = reader.nextString();
+            } else if (name.equals(DESCRIPTION)) {
+                description = reader.nextString();
+            } else if (name.equals(DATA)) {
+                offset = entries.size();
+                size = JsonBridge.readArray(reader, new JsonBridge.ElementHandler() {
+                    @Override
+                    public void onElement(JsonReader reader, int index) throws IOException {
+                        if (keys.length == 0) {
+                            writeString(entries, reader.nextString());
+                            return;
+                        }
+                        String[] fields = new String[keys.length];
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            int field = Arrays.asList(keys).indexOf(reader.nextName());
+                            if (field >= 0) {
+                                fields[field] = reader.nextString();
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        for (int i = 0; i < keys.length; i++) {
+                            if (fields[i] == null) throw new IOException("Entry " + index + " has no " + keys[i]);
+                            writeString(entries, fields[i]);
+                        }
+                    }
+                });
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (title == null) {
+            throw new IOException("No " + TITLE);
+        }
+        writeString(contents, title);
+        writeString(contents, description);
+        contents.writeInt(size);
+        offsetPositions.add(contents.size());
+        contents.writeInt(offset);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CataloguePack <assets dir> <pack file>");
+            System.exit(2);
+        }
+        File pack = new File(args[1]);
+        File parent = pack.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Can not create " + parent);
+        }
+        OutputStream out = new FileOutputStream(pack);
+        try {
+            write(new FileResourceLoader(new File(args[0])), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long: " + value.substring(0, 32) + "...");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @return the categories of the catalogue in the order of their files, empty if the pack
+     * has no such catalogue
+     */
+    public List<Category> getCategories(String catalogue) {
+        List<Category> categories = catalogues.get(catalogue);
+        return categories != null ? categories : Collections.<Category>emptyList();
+    }
+
+    public static class Category {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final String title, description;
+        private final int size, fields;
+        private String[] entries;
+
+        private Category(ByteBuffer buffer, int offset, String title, String description, int size, int fields) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.title = title;
+            this.description = description;
+            this.size = size;
+            this.fields = fields;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return number of entries, known without decoding them
+         */
+        public int size() {
+            return size;
+        }
+
+        public synchronized boolean isDecoded() {
+            return entries != null;
+        }
+
+        /**
+         * @return the field of the entry, the only field for entries that are plain strings
+         */
+        public String get(int entry, int field) {
+            return decode()[entry * fields + field];
+        }
+
+        /**
+         * @return this field of every entry, in order
+         */
+        public ArrayList<String> getValues(int field) {
+            String[] entries = decode();
+            ArrayList<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(entries[i * fields + field]);
+            }
+            return result;
+        }
+
+        private synchronized String[] decode() {
+            if (entries == null) {
+                ByteBuffer in = buffer.duplicate();
+                in.position(offset);
+                String[] decoded = new String[size * fields];
+                for (int i = 0; i < decoded.length; i++) {
+                    decoded[i] = readString(in);
+                }
+                entries = decoded;
+            }
+            return entries;
+        }
+    }
+}
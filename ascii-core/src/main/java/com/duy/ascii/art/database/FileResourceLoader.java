@@ -0,0 +1,54 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads resources from a copy of the assets directory on disk.
+ */
+public class FileResourceLoader implements ResourceLoader {
+    private final File root;
+
+    public FileResourceLoader(File root) {
+        this.root = root;
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        return new FileInputStream(new File(root, path));
+    }
+
+    @Override
+    public String[] list(String path) throws IOException {
+        File dir = new File(root, path);
+        String[] names = dir.list();
+        if (names == null) {
+            throw new FileNotFoundException(dir.getPath());
+        }
+        // AssetManager returns sorted names, keep the same order everywhere
+        Arrays.sort(names);
+        return names;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.duy.ascii.art.database;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Created by Duy on 1/11/2018.
+ */
+
+public class JsonBridge {
+    private static final char key = 10;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static JSONObject getJson(ResourceLoader loader, String path) throws JSONException, IOException {
+        InputStream stream = loader.open(path);
+        try {
+            return getJson(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Reads the whole document into a tree, prefer {@link #newReader(InputStream)} for large
+     * files
+     */
+    public static JSONObject getJson(InputStream stream) throws JSONException, IOException {
+        return new JSONObject(IOUtils.toString(decode(stream), UTF_8.name()));
+    }
+
+    /**
+     * Opens a file of the loader for streaming, close the reader when done
+     */
+    public static JsonReader openReader(ResourceLoader loader, String path) throws IOException {
+        return newReader(loader.open(path));
+    }
+
+    /**
+     * @return a pull parser over the decoded stream, nothing is read before the first token is
+     * asked for. Closing the reader closes the stream.
+     */
+    public static JsonReader newReader(InputStream stream) {
+        return new JsonReader(new InputStreamReader(decode(stream), UTF_8));
+    }
+
+    /**
+     * Calls the handler for every element of the array that is next in the reader. The handler
+     * must read exactly one value.
+     *
+     * @return number of elements
+     */
+    public static int readArray(JsonReader reader, ElementHandler handler) throws IOException {
+        int index = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            handler.onElement(reader, index++);
+        }
+        reader.endArray();
+        return index;
+    }
+
+    /**
+     * Decodes the assets as they are read
+     */
+    private static InputStream decode(InputStream content) {
+//        return new Base64InputStream(content, Base64.DEFAULT);
+        // TODO: 1/11/2018 encode before publish
+        return content;
+    }
+
+    public interface ElementHandler {
+        void onElement(JsonReader reader, int index) throws IOException;
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser that reads a json document one token at a time, with the same methods as
+ * android.util.JsonReader, which the plain JVM users of this module do not have. Only the current
+ * string and a small character buffer are held, so a document of any size is read in constant
+ * memory.
+ * <pre>
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     String name = reader.nextName();
+ *     ...
+ * }
+ * reader.endObject();
+ * </pre>
+ * Syntax errors throw an {@link IOException} with the line of the error.
+ */
+public class JsonReader implements Closeable {
+    public enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, BOOLEAN, NULL,
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Reader in;
+    private final char[] buffer = new char[1024];
+    private int pos, limit;
+    private int line = 1;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    /* the next token and, for names and values, its text; null if it is not read yet */
+    private Token peeked;
+    private String value;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c;
+        switch (stack[stackSize - 1]) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                // the end of the input is not put back, readValue finds it again
+                if (c != -1) pos--;
+                return peeked = readValue();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("Expected , or ]");
+                return peeked = readValue();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (stack[stackSize - 1] == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("Expected , or }");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("Expected a name");
+                stack[stackSize - 1] = DANGLING_NAME;
+                value = readString();
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') throw syntaxError("Expected :");
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return peeked = readValue();
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peeked = readValue();
+            default:
+                if (nextNonWhitespace() != -1) throw syntaxError("Expected end of document");
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * @return true if the current array or object has another element
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return value;
+    }
+
+    /**
+     * @return the next string, or the text of the next number
+     */
+    public String nextString() throws IOException {
+        if (peek() != Token.NUMBER) expect(Token.STRING);
+        peeked = null;
+        return value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return value.equals("true");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    public long nextLong() throws IOException {
+        String text = nextString();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            double number = parseDouble(text);
+            if ((long) number != number) throw syntaxError("Expected a long but was " + text);
+            return (long) number;
+        }
+    }
+
+    public int nextInt() throws IOException {
+        long number = nextLong();
+        if ((int) number != number) throw syntaxError("Expected an int but was " + number);
+        return (int) number;
+    }
+
+    public double nextDouble() throws IOException {
+        return parseDouble(nextString());
+    }
+
+    /**
+     * Skips the next value, with everything nested in it
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Expected a value");
+                default:
+                    peeked = null;
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token token) throws IOException {
+        Token next = peek();
+        if (next != token) {
+            throw syntaxError("Expected " + token + " but was " + next);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] larger = new int[stackSize * 2];
+            System.arraycopy(stack, 0, larger, 0, stackSize);
+            stack = larger;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private Token readValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                value = readString();
+                return Token.STRING;
+            case -1:
+                throw syntaxError("Expected a value");
+        }
+        pos--;
+        StringBuilder literal = new StringBuilder();
+        while (pos < limit || fill(1)) {
+            char next = buffer[pos];
+            if (next == ',' || next == ']' || next == '}' || next == ':'
+                    || next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+                break;
+            }
+            literal.append(next);
+            pos++;
+        }
+        value = literal.toString();
+        if (value.equals("true") || value.equals("false")) return Token.BOOLEAN;
+        if (value.equals("null")) return Token.NULL;
+        if (value.isEmpty()) throw syntaxError("Expected a value");
+        char first = value.charAt(0);
+        if (first == '-' || (first >= '0' && first <= '9')) return Token.NUMBER;
+        throw syntaxError("Unexpected value " + value);
+    }
+
+    /**
+     * Reads the rest of a string, after its opening quote. Strings without escapes that are
+     * inside the buffer are copied once.
+     */
+    private String readString() throws IOException {
+        StringBuilder builder = null;
+        while (true) {
+            int p = pos;
+            int start = p;
+            while (p < limit) {
+                char c = buffer[p++];
+                if (c == '"') {
+                    pos = p;
+                    if (builder == null) {
+                        return new String(buffer, start, p - start - 1);
+                    }
+                    builder.append(buffer, start, p - start - 1);
+                    return builder.toString();
+                } else if (c == '\\') {
+                    pos = p;
+                    if (builder == null) builder = new StringBuilder();
+                    builder.append(buffer, start, p - start - 1);
+                    builder.append(readEscape());
+                    p = pos;
+                    start = p;
+                } else if (c == '\n') {
+                    line++;
+                }
+            }
+            if (builder == null) builder = new StringBuilder();
+            builder.append(buffer, start, p - start);
+            pos = p;
+            if (!fill(1)) throw syntaxError("Unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        if (pos == limit && !fill(1)) throw syntaxError("Unterminated escape");
+        char c = buffer[pos++];
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (pos + 4 > limit && !fill(4)) throw syntaxError("Unterminated escape");
+                int result = 0;
+                for (int i = pos; i < pos + 4; i++) {
+                    int digit = Character.digit(buffer[i], 16);
+                    if (digit < 0) throw syntaxError("Invalid escape \\u" + new String(buffer, pos, 4));
+                    result = (result << 4) | digit;
+                }
+                pos += 4;
+                return (char) result;
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Invalid escape \\" + c);
+        }
+    }
+
+    /**
+     * @return the next character that is not white space, -1 at the end of the input
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (pos < limit || fill(1)) {
+            char c = buffer[pos++];
+            if (c == '\n') {
+                line++;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the unread characters to the start of the buffer and reads until at least the given
+     * number of them are available
+     */
+    private boolean fill(int minimum) throws IOException {
+        System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < minimum) {
+            int count = in.read(buffer, limit, buffer.length - limit);
+            if (count == -1) {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    private double parseDouble(String text) throws IOException {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a number but was " + text);
+        }
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at line " + line);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens bundled resources (fonts, json data) by their path relative to the assets directory.
+ * On Android this is backed by the AssetManager, elsewhere by a directory or the class path.
+ */
+public interface ResourceLoader {
+    InputStream open(String path) throws IOException;
+
+    /**
+     * @return names of the files in the given directory, never null
+     */
+    String[] list(String path) throws IOException;
+}
@@ -0,0 +1,268 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import com.duy.ascii.art.search.NearDuplicateIndex;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bundled text art (assets/new_ascii_art.json) compiled into a binary file with an offset
+ * for every entry, so that any page of entries is decoded without reading the ones before it.
+ * <pre>
+ * int magic, int version, int entry count
+ * offsets: int offset of every entry
+ * entries: int category, long time, int star, name, content
+ * </pre>
+ * Strings are an int length followed by their UTF-8 bytes. Opening a catalogue reads the header
+ * only.
+ * <p>
+ * Build step: java TextArtCatalogue &lt;json file&gt; &lt;pack file&gt;, which also warns about
+ * near duplicates, see {@link NearDuplicateIndex}
+ */
+public class TextArtCatalogue {
+    private static final int MAGIC = 0x54585441; // TXTA
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String ROOT = "ascii_art";
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    public TextArtCatalogue(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate();
+        if (this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a text art catalogue");
+        }
+        size = this.buffer.getInt(8);
+    }
+
+    /**
+     * Maps the pack file into memory
+     */
+    public static TextArtCatalogue map(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the file is closed
+            return new TextArtCatalogue(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the whole pack with one read, for packs that can not be mapped
+     */
+    public static TextArtCatalogue read(InputStream in) throws IOException {
+        return new TextArtCatalogue(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Compiles the json file in memory, for builds without the pack
+     */
+    public static TextArtCatalogue build(InputStream json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(json, out);
+        return new TextArtCatalogue(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Compiles the json catalogue, entries keep the order of the file. The json is streamed, only
+     * the compiled entries are held in memory.
+     */
+    public static void write(InputStream json, OutputStream out) throws IOException {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        final DataOutputStream entriesOut = new DataOutputStream(entries);
+        final List<Integer> offsets = new ArrayList<>();
+
+        JsonReader reader = JsonBridge.newReader(json);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals(ROOT)) {
+                reader.skipValue();
+                continue;
+            }
+            JsonBridge.readArray(reader, new JsonBridge.ElementHandler() {
+                @Override
+                public void onElement(JsonReader reader, int index) throws IOException {
+                    Entry entry = readEntry(reader);
+                    if (entry.content == null) {
+                        throw new IOException("Entry " + index + " has no content");
+                    }
+                    offsets.add(entriesOut.size());
+                    entriesOut.writeInt(entry.category);
+                    entriesOut.writeLong(entry.time);
+                    entriesOut.writeInt(entry.star);
+                    writeString(entriesOut, entry.name);
+                    writeString(entriesOut, entry.content);
+                }
+            });
+        }
+        reader.endObject();
+        entriesOut.flush();
+
+        int entriesStart = HEADER_SIZE + 4 * offsets.size();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(offsets.size());
+        for (int offset : offsets) {
+            data.writeInt(entriesStart + offset);
+        }
+        entries.writeTo(data);
+        data.flush();
+    }
+
+    private static Entry readEntry(JsonReader reader) throws IOException {
+        int category = 0, star = 0;
+        long time = 0;
+        String name = "", content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (key.equals("category")) {
+                category = reader.nextInt();
+            } else if (key.equals("time")) {
+                time = reader.nextLong();
+            } else if (key.equals("star")) {
+                star = reader.nextInt();
+            } else if (key.equals("name")) {
+                name = reader.nextString();
+            } else if (key.equals("content")) {
+                content = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Entry(category, time, star, name, content);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: TextArtCatalogue <json file> <pack file>");
+            System.exit(2);
+        }
+        File pack = new File(args[1]);
+        File parent = pack.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Can not create " + parent);
+        }
+        InputStream in = new FileInputStream(args[0]);
+        try {
+            OutputStream out = new FileOutputStream(pack);
+            try {
+                write(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        reportNearDuplicates(map(pack));
+    }
+
+    /**
+     * Warns about every entry that is nearly the same as an entry before it
+     */
+    private static void reportNearDuplicates(TextArtCatalogue catalogue) {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        for (int i = 0; i < catalogue.size(); i++) {
+            String content = catalogue.get(i).content;
+            int duplicate = index.findDuplicate(content);
+            if (duplicate >= 0) {
+                System.err.println("warning: text art " + i + " is nearly the same as " + duplicate);
+            }
+            index.add(content);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Entry get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        ByteBuffer in = buffer.duplicate();
+        in.position(buffer.getInt(HEADER_SIZE + 4 * position));
+        int category = in.getInt();
+        long time = in.getLong();
+        int star = in.getInt();
+        String name = readString(in);
+        return new Entry(category, time, star, name, readString(in));
+    }
+
+    /**
+     * @return the entries from start, fewer than count at the end of the catalogue
+     */
+    public List<Entry> getPage(int start, int count) {
+        int end = Math.min(size, start + count);
+        List<Entry> page = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            page.add(get(i));
+        }
+        return page;
+    }
+
+    public static class Entry {
+        public final int category;
+        public final long time;
+        public final int star;
+        public final String name;
+        public final String content;
+
+        Entry(int category, long time, int star, String name, String content) {
+            this.category = category;
+            this.time = time;
+            this.star = star;
+            this.name = name;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+/**
+ * Horizontal alignment of the lines of wrapped text art
+ */
+public enum Alignment {
+    LEFT, CENTER, RIGHT;
+
+    /**
+     * @return number of blank columns before a line of the given width
+     */
+    public int indent(int width, int maxWidth) {
+        if (width >= maxWidth) return 0;
+        switch (this) {
+            case CENTER:
+                return (maxWidth - width) / 2;
+            case RIGHT:
+                return maxWidth - width;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Which fonts have a glyph for which code point, so that only the fonts that can render a text
+ * are used. Every code point maps to the bit set of its fonts; a query intersects the sets of
+ * the code points of the text.
+ */
+public class CoverageIndex {
+    private final int fontCount;
+    private final BitSet[] ascii = new BitSet[128];
+    private final HashMap<Integer, BitSet> others = new HashMap<>();
+
+    public CoverageIndex(int fontCount) {
+        this.fontCount = fontCount;
+    }
+
+    public int getFontCount() {
+        return fontCount;
+    }
+
+    public void add(int font, int codePoint) {
+        BitSet fonts = get(codePoint);
+        if (fonts == null) {
+            fonts = new BitSet(fontCount);
+            if (codePoint < ascii.length) {
+                ascii[codePoint] = fonts;
+            } else {
+                others.put(codePoint, fonts);
+            }
+        }
+        fonts.set(font);
+    }
+
+    /**
+     * @return true if any font has a glyph for the code point
+     */
+    public boolean contains(int codePoint) {
+        return get(codePoint) != null;
+    }
+
+    private BitSet get(int codePoint) {
+        return codePoint < ascii.length ? ascii[codePoint] : others.get(codePoint);
+    }
+
+    /**
+     * @return the fonts that have a glyph for every code point of the text, line breaks are
+     * not looked up
+     */
+    public BitSet getFonts(CharSequence text) {
+        BitSet result = new BitSet(fontCount);
+        result.set(0, fontCount);
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (codePoint == '\n' || codePoint == '\r') continue;
+            BitSet fonts = get(codePoint);
+            if (fonts == null) {
+                result.clear();
+                break;
+            }
+            result.and(fonts);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All figlet fonts of the app compiled into one binary file, so that a font is ready without
+ * parsing its text file.
+ * <pre>
+ * int magic, int version, int font count
+ * index: for every font short name length, name chars, int offset of the font record
+ * font records, see {@link FigletModel#write(DataOutputStream)}: header, sorted glyph code
+ * points, glyph widths, glyph cell offsets, edge tables and the flat glyph cell area
+ * </pre>
+ * Opening a pack reads the index only; {@link #getFont(String)} reads the header of one font
+ * record and wraps its tables, the glyph rows stay in the (memory mapped) buffer.
+ * <p>
+ * Build step: java FigletFontPack &lt;fonts dir&gt; &lt;pack file&gt;
+ */
+public class FigletFontPack {
+    private static final int MAGIC = 0x464c4650; // FLFP
+    private static final int VERSION = 2;
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> offsets = new LinkedHashMap<>();
+    private CoverageIndex coverage;
+
+    public FigletFontPack(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate();
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a figlet font pack");
+        }
+        int count = header.getInt();
+        for (int i = 0; i < count; i++) {
+            char[] name = new char[header.getShort()];
+            for (int j = 0; j < name.length; j++) {
+                name[j] = header.getChar();
+            }
+            offsets.put(new String(name), header.getInt());
+        }
+    }
+
+    /**
+     * Maps the pack file into memory
+     */
+    public static FigletFontPack map(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the file is closed
+            return new FigletFontPack(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the whole pack with one read, for packs that can not be mapped
+     */
+    public static FigletFontPack read(InputStream in) throws IOException {
+        return new FigletFontPack(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Compiles every font of the directory, fonts are named by their file name
+     */
+    public static void write(File fontDir, OutputStream out) throws IOException {
+        File[] files = fontDir.listFiles();
+        if (files == null) {
+            throw new IOException("Can not list " + fontDir);
+        }
+        Arrays.sort(files);
+        List<String> names = new ArrayList<>();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordsOut = new DataOutputStream(records);
+        List<Integer> recordOffsets = new ArrayList<>();
+        for (File file : files) {
+            if (!file.isFile()) continue;
+            InputStream in = new FileInputStream(file);
+            try {
+                FigletModel model = new FigletModel(in);
+                names.add(file.getName());
+                recordOffsets.add(recordsOut.size());
+                model.write(recordsOut);
+            } finally {
+                in.close();
+            }
+        }
+        recordsOut.flush();
+
+        int indexSize = 12;
+        for (String name : names) {
+            indexSize += 2 + 2 * name.length() + 4;
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            data.writeShort(names.get(i).length());
+            data.writeChars(names.get(i));
+            data.writeInt(indexSize + recordOffsets.get(i));
+        }
+        records.writeTo(data);
+        data.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: FigletFontPack <fonts dir> <pack file>");
+            System.exit(2);
+        }
+        File pack = new File(args[1]);
+        File parent = pack.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Can not create " + parent);
+        }
+        OutputStream out = new FileOutputStream(pack);
+        try {
+            write(new File(args[0]), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public String[] getFontNames() {
+        return offsets.keySet().toArray(new String[offsets.size()]);
+    }
+
+    /**
+     * @return coverage of the fonts in the order of {@link #getFontNames()}, built from the
+     * code point tables of the records on first use
+     */
+    public synchronized CoverageIndex getCoverage() {
+        if (coverage == null) {
+            CoverageIndex index = new CoverageIndex(offsets.size());
+            int font = 0;
+            for (String name : offsets.keySet()) {
+                FigletModel model = getFont(name);
+                for (int glyph = 0; glyph < model.getGlyphCount(); glyph++) {
+                    index.add(font, model.getGlyphCodePoint(glyph));
+                }
+                font++;
+            }
+            coverage = index;
+        }
+        return coverage;
+    }
+
+    /**
+     * @return names of the fonts that have a glyph for every character of the text
+     */
+    public List<String> getFontNamesFor(CharSequence text) {
+        BitSet fonts = getCoverage().getFonts(text);
+        String[] names = getFontNames();
+        List<String> result = new ArrayList<>(fonts.cardinality());
+        for (int i = fonts.nextSetBit(0); i >= 0; i = fonts.nextSetBit(i + 1)) {
+            result.add(names[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the font with this file name, null if it is not in the pack
+     */
+    public FigletModel getFont(String name) {
+        Integer offset = offsets.get(name);
+        if (offset == null) return null;
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        return FigletModel.read(record);
+    }
+}
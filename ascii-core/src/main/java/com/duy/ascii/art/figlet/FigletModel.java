@@ -0,0 +1,904 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.duy.ascii.art.figlet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+import java.util.zip.ZipInputStream;
+
+/**
+ * FigletFont implementation. A single static method call will create the ascii
+ * art in a mulitilne String. FigletFont format is specified at:
+ * https://github.com/lalyos/jfiglet/blob/master/figfont.txt
+ * <p>
+ * <pre>
+ * <code>String asciiArt = FigletFont.convertOneLine("hello");</code>
+ * </pre>
+ * <p>
+ * Originally found at: http://www.rigaut.com/benoit/CERN/FigletJava/. Moved to
+ * <a href="http://lalyos.github.io/jfiglet/">github.com</a>.
+ *
+ * @author Benoit Rigaut CERN July 96
+ *         www.rigaut.com benoit@rigaut.com
+ *         released with GPL the 13th of november 2000 (my birthday!)
+ *         <p>
+ *         Glyphs are laid out with the horizontal fitting and smushing rules of the font
+ *         ({@link #layout}). Glyph rows are padded to the glyph width and their blank edges are
+ *         measured once when the font is loaded, so {@link #convert(String)} is a single pass
+ *         over preallocated char buffers. Glyphs are found by a binary search over their sorted
+ *         code points, so code tagged glyphs can use the whole Unicode range. The glyph tables
+ *         are flat buffers so that a font can also be used straight from a memory mapped
+ *         {@link FigletFontPack}.
+ */
+public class FigletModel {
+    /* horizontal layout bits of the "full layout" header field */
+    public static final int SMUSH_EQUAL = 1;
+    public static final int SMUSH_LOWLINE = 2;
+    public static final int SMUSH_HIERARCHY = 4;
+    public static final int SMUSH_PAIR = 8;
+    public static final int SMUSH_BIG_X = 16;
+    public static final int SMUSH_HARDBLANK = 32;
+    public static final int KERNING = 64;
+    public static final int SMUSHING = 128;
+    private static final int SMUSH_RULES = 63;
+    /* every font has the printable ASCII characters, then Ä Ö Ü ä ö ü ß */
+    private static final int REQUIRED_CHARS = 95;
+    private static final String FIGLET_SIGNATURE = "flf2";
+    private static final String TOILET_SIGNATURE = "tlf2";
+    private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+    private static final int[] DEUTSCH = {196, 214, 220, 228, 246, 252, 223};
+
+    public char hardblank;
+    public int height = -1;
+    public int heightWithoutDescenders = -1;
+    public int maxLine = -1;
+    public int smushMode = -1;
+    /**
+     * Horizontal layout, combination of {@link #KERNING}, {@link #SMUSHING} and the SMUSH_
+     * rules. Without any of them glyphs are drawn at full width.
+     */
+    public int layout = 0;
+    public String fontName = null;
+    /* code point of every glyph, ascending; the glyph tables below follow this order */
+    private IntBuffer glyphCodes;
+    private ShortBuffer glyphWidth;
+    /* index in cells of the first row of every glyph */
+    private IntBuffer glyphCells;
+    /* number of leading spaces of every glyph row, the glyph width for blank rows */
+    private ShortBuffer leftBlank;
+    /* index after the last non space character of every glyph row, 0 for blank rows */
+    private ShortBuffer rightEnd;
+    /*
+     * Rows of all glyphs, glyph after glyph, padded with spaces to the width of the glyph.
+     * Hardblanks are kept, they are replaced by spaces in the output only.
+     */
+    private CharBuffer cells;
+
+    private FigletModel() {
+    }
+
+    /**
+     * Creates a FigletFont as specified at: https://github.com/lalyos/jfiglet/blob/master/figfont.txt
+     * <p>
+     * TOIlet fonts (signature tlf2a, glyphs in UTF-8) are read the same way. Fonts compressed
+     * in a zip archive, as figlet and toilet ship them, are decompressed while they are parsed.
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public FigletModel(InputStream stream) throws IOException {
+        GlyphTableBuilder builder = null;
+        BufferedReader data = null;
+        String dummyS;
+        int dummyI;
+        int charCode;
+        try {
+
+            data = new BufferedReader(new InputStreamReader(decompress(stream), "UTF-8"));
+
+            dummyS = data.readLine();
+            if (dummyS == null || !(dummyS.startsWith(FIGLET_SIGNATURE) || dummyS.startsWith(TOILET_SIGNATURE))) {
+                throw new IOException("Not a figlet or toilet font");
+            }
+            StringTokenizer st = new StringTokenizer(dummyS, " ");
+            String s = st.nextToken();
+            hardblank = s.charAt(s.length() - 1);
+            height = Integer.parseInt(st.nextToken());
+            heightWithoutDescenders = Integer.parseInt(st.nextToken());
+            maxLine = Integer.parseInt(st.nextToken());
+            smushMode = Integer.parseInt(st.nextToken());
+            dummyI = Integer.parseInt(st.nextToken());
+            if (st.hasMoreTokens()) st.nextToken(); // print direction
+            if (st.hasMoreTokens()) {
+                layout = Integer.parseInt(st.nextToken()) & (SMUSHING | KERNING | SMUSH_RULES);
+            } else if (smushMode == 0) {
+                layout = KERNING;
+            } else if (smushMode > 0) {
+                layout = SMUSHING | (smushMode & SMUSH_RULES);
+            }
+
+            /*
+             * try to read the font name as the first word of the first comment
+             * line, but this is not standardized !
+             */
+            st = new StringTokenizer(data.readLine(), " ");
+            if (st.hasMoreElements())
+                fontName = st.nextToken();
+            else
+                fontName = "";
+
+            for (int i = 0; i < dummyI - 1; i++) // skip the comments
+                data.readLine();
+            builder = new GlyphTableBuilder(height);
+            int glyphIndex = 0;
+            charCode = 31;
+            while ((dummyS = data.readLine()) != null) {  // for all the characters
+                if (glyphIndex < REQUIRED_CHARS) {
+                    charCode = ' ' + glyphIndex;
+                } else {
+                    // the German characters and then code tagged characters
+                    int tagged = parseCodeTag(dummyS);
+                    if (tagged != Integer.MIN_VALUE) {
+                        charCode = tagged;
+                        dummyS = data.readLine();
+                    } else if (glyphIndex - REQUIRED_CHARS < DEUTSCH.length) {
+                        charCode = DEUTSCH[glyphIndex - REQUIRED_CHARS];
+                    } else {
+                        charCode++;
+                    }
+                }
+                glyphIndex++;
+
+                char[][] rows = new char[height][];
+                int width = 0;
+                for (int h = 0; h < height && dummyS != null; h++) {
+                    if (h > 0) dummyS = data.readLine();
+                    if (dummyS != null) {
+                        rows[h] = stripEndMarks(dummyS);
+                        width = Math.max(width, rows[h].length);
+                    }
+                }
+                if (charCode >= 0 && charCode <= Character.MAX_CODE_POINT) {
+                    builder.add(charCode, rows, width);
+                }
+            }
+        } finally {
+            if (data != null) {
+                data.close();
+            }
+        }
+        builder.build(this);
+    }
+
+    /**
+     * @return the stream, or the first entry of the zip archive in it, buffered
+     */
+    private static InputStream decompress(InputStream stream) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(stream);
+        in.mark(ZIP_SIGNATURE.length);
+        boolean zip = true;
+        for (byte b : ZIP_SIGNATURE) {
+            if (in.read() != b) zip = false;
+        }
+        in.reset();
+        if (!zip) return in;
+        ZipInputStream entries = new ZipInputStream(in);
+        if (entries.getNextEntry() == null) {
+            throw new IOException("Empty font archive");
+        }
+        return entries;
+    }
+
+    /**
+     * @return the character code of a code tag line ("196", "0xC4" or "0304" followed by a
+     * comment), {@link Integer#MIN_VALUE} if the line is not a code tag
+     */
+    private static int parseCodeTag(String line) {
+        String codeTag = line.concat(" ").split(" ")[0];
+        try {
+            if (codeTag.length() > 2 && (codeTag.charAt(1) == 'x' || codeTag.charAt(1) == 'X')) {
+                return Integer.parseInt(codeTag.substring(2), 16);
+            } else if (codeTag.length() > 1 && codeTag.charAt(0) == '0') {
+                return Integer.parseInt(codeTag.substring(1), 8);
+            } else {
+                return Integer.parseInt(codeTag);
+            }
+        } catch (NumberFormatException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Removes the trailing white space and end marks of a glyph row
+     */
+    private static char[] stripEndMarks(String row) {
+        int end = row.length();
+        while (end > 0 && Character.isWhitespace(row.charAt(end - 1))) end--;
+        if (end > 0) {
+            char endMark = row.charAt(end - 1);
+            while (end > 0 && row.charAt(end - 1) == endMark) end--;
+        }
+        return row.substring(0, end).toCharArray();
+    }
+
+    /**
+     * Reads a font written by {@link #write(DataOutputStream)}. Only the header is parsed, the
+     * glyph tables are views of the buffer.
+     */
+    static FigletModel read(ByteBuffer buffer) {
+        FigletModel model = new FigletModel();
+        model.hardblank = buffer.getChar();
+        model.height = buffer.getInt();
+        model.heightWithoutDescenders = buffer.getInt();
+        model.maxLine = buffer.getInt();
+        model.smushMode = buffer.getInt();
+        model.layout = buffer.getInt();
+        int glyphCount = buffer.getInt();
+        int cellCount = buffer.getInt();
+        char[] name = new char[buffer.getShort()];
+        buffer.asCharBuffer().get(name);
+        buffer.position(buffer.position() + 2 * name.length);
+        model.fontName = new String(name);
+
+        model.glyphCodes = slice(buffer, 4 * glyphCount).asIntBuffer();
+        model.glyphWidth = slice(buffer, 2 * glyphCount).asShortBuffer();
+        model.glyphCells = slice(buffer, 4 * glyphCount).asIntBuffer();
+        model.leftBlank = slice(buffer, 2 * glyphCount * model.height).asShortBuffer();
+        model.rightEnd = slice(buffer, 2 * glyphCount * model.height).asShortBuffer();
+        model.cells = slice(buffer, 2 * cellCount).asCharBuffer();
+        return model;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(bytes);
+        buffer.position(buffer.position() + bytes);
+        return slice;
+    }
+
+    /**
+     * Writes the header and the glyph tables in the format of {@link #read(ByteBuffer)}
+     */
+    void write(DataOutputStream out) throws IOException {
+        int glyphCount = glyphWidth.limit();
+        out.writeChar(hardblank);
+        out.writeInt(height);
+        out.writeInt(heightWithoutDescenders);
+        out.writeInt(maxLine);
+        out.writeInt(smushMode);
+        out.writeInt(layout);
+        out.writeInt(glyphCount);
+        out.writeInt(cells.limit());
+        out.writeShort(fontName.length());
+        out.writeChars(fontName);
+        for (int i = 0; i < glyphCount; i++) out.writeInt(glyphCodes.get(i));
+        for (int i = 0; i < glyphCount; i++) out.writeShort(glyphWidth.get(i));
+        for (int i = 0; i < glyphCount; i++) out.writeInt(glyphCells.get(i));
+        for (int i = 0; i < glyphCount * height; i++) out.writeShort(leftBlank.get(i));
+        for (int i = 0; i < glyphCount * height; i++) out.writeShort(rightEnd.get(i));
+        for (int i = 0; i < cells.limit(); i++) out.writeChar(cells.get(i));
+    }
+
+    /**
+     * Return a single character represented as char[][].
+     *
+     * @param c The numerical id of the character.
+     * @return The rows of the character, hardblanks included, or null if the font has no glyph
+     */
+    public char[][] getChar(int c) {
+        int glyph = glyphOf(c);
+        if (glyph < 0) return null;
+        int width = glyphWidth.get(glyph);
+        int cell = glyphCells.get(glyph);
+        char[][] rows = new char[height][width];
+        for (int h = 0; h < height; h++) {
+            for (int k = 0; k < width; k++) {
+                rows[h][k] = cells.get(cell++);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Selects a single line from a character.
+     *
+     * @param c Character id
+     * @param l Line number
+     * @return The selected line from the character
+     */
+    public String getCharLineString(int c, int l) {
+        char[][] rows = getChar(c);
+        if (rows == null)
+            return null;
+        else {
+            return new String(rows[l]).replace(hardblank, ' ');
+        }
+    }
+
+    /**
+     * @return the glyph number of the code point, -1 if the font has no glyph for it
+     */
+    private int glyphOf(int codePoint) {
+        int low = 0;
+        int high = glyphCodes.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int code = glyphCodes.get(middle);
+            if (code < codePoint) {
+                low = middle + 1;
+            } else if (code > codePoint) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of characters the font has a glyph for
+     */
+    public int getGlyphCount() {
+        return glyphCodes.limit();
+    }
+
+    /**
+     * @return estimated heap bytes held by the font; the tables of a font from a
+     * {@link FigletFontPack} are views of the pack and are not counted
+     */
+    public long getEstimatedSize() {
+        long size = 128;
+        if (cells.hasArray()) {
+            // parsed font, the tables are its own arrays
+            size += 2L * cells.capacity() + 10L * glyphCodes.limit() + 4L * leftBlank.limit();
+        }
+        return size;
+    }
+
+    /**
+     * @return the code point of a glyph, glyphs are sorted by code point
+     */
+    public int getGlyphCodePoint(int glyph) {
+        return glyphCodes.get(glyph);
+    }
+
+    /**
+     * Renders the message, every '\n' starts a new block of {@link #height} rows. Characters
+     * missing from the font are skipped.
+     */
+    public String convert(String message) {
+        // width of the widest line when nothing is fitted or smushed
+        int capacity = 0;
+        int lineWidth = 0;
+        int lines = 1;
+        for (int i = 0; i < message.length(); ) {
+            int c = message.codePointAt(i);
+            i += Character.charCount(c);
+            int glyph;
+            if (c == '\n') {
+                lines++;
+                capacity = Math.max(capacity, lineWidth);
+                lineWidth = 0;
+            } else if ((glyph = glyphOf(c)) >= 0) {
+                lineWidth += glyphWidth.get(glyph);
+            }
+        }
+        capacity = Math.max(capacity, lineWidth);
+
+        char[][] rows = new char[height][capacity];
+        int[] rowEnd = new int[height];
+        char[] out = new char[lines * height * (capacity + 1)];
+        int length = 0;
+        int start = 0;
+        while (true) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) end = message.length();
+            int width = layoutLine(message, start, end, rows, rowEnd);
+            for (int h = 0; h < height; h++) {
+                char[] row = rows[h];
+                for (int i = 0; i < width; i++) {
+                    out[length++] = row[i] == hardblank ? ' ' : row[i];
+                }
+                out[length++] = '\n';
+            }
+            if (end == message.length()) break;
+            start = end + 1;
+        }
+        return new String(out, 0, length);
+    }
+
+    /**
+     * Renders the message wrapped to lines of at most maxWidth columns. Lines are broken at the
+     * last space that fits, words wider than a line are broken between glyphs. Widths are the
+     * smushed widths: every character is laid out into one {@link Line}, and when the line
+     * overflows it is truncated back to the break (see {@link Line#truncate(int)}), written out
+     * and the characters after the break are laid out again on the next line.
+     */
+    public String convert(String message, int maxWidth, Alignment alignment) {
+        StringBuilder out = new StringBuilder();
+        Line line = newLine();
+        int start = 0;
+        while (true) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) end = message.length();
+            line.truncate(0);
+            boolean wrapped = false;
+            // index in the line text of the last space, and the index after it in the message
+            int lineSpace = -1;
+            int messageSpace = -1;
+            for (int i = start; i < end; ) {
+                int codePoint = message.codePointAt(i);
+                int next = i + Character.charCount(codePoint);
+                int before = line.text.length();
+                if (codePoint == ' ') {
+                    if (!(wrapped && before == 0)) {
+                        // spaces of a wrapped line are dropped at the break
+                        line.append(codePoint);
+                        lineSpace = before;
+                        messageSpace = next;
+                    }
+                } else {
+                    line.append(codePoint);
+                    if (line.getWidth() > maxWidth && before > 0) {
+                        if (lineSpace >= 0) {
+                            line.truncate(lineSpace);
+                            next = messageSpace;
+                        } else {
+                            line.truncate(before);
+                            next = i;
+                        }
+                        while (line.text.length() > 0 && line.text.charAt(line.text.length() - 1) == ' ') {
+                            line.truncate(line.text.length() - 1);
+                        }
+                        line.appendRows(out, alignment.indent(line.getWidth(), maxWidth));
+                        line.truncate(0);
+                        wrapped = true;
+                        lineSpace = -1;
+                    }
+                }
+                i = next;
+            }
+            line.appendRows(out, alignment.indent(line.getWidth(), maxWidth));
+            if (end == message.length()) break;
+            start = end + 1;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Lays out message[start, end) into the row buffers
+     *
+     * @param rowEnd receives the index after the last non space character of every row
+     * @return the width of the rows
+     */
+    private int layoutLine(String message, int start, int end, char[][] rows, int[] rowEnd) {
+        Arrays.fill(rowEnd, 0);
+        int length = 0;
+        int previousWidth = 0;
+        for (int i = start; i < end; ) {
+            int codePoint = message.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int glyph = glyphOf(codePoint);
+            if (glyph < 0) continue;
+            int overlap = overlap(glyph, rows, rowEnd, length, previousWidth);
+            length = placeGlyph(glyph, overlap, rows, rowEnd, length, previousWidth);
+            previousWidth = glyphWidth.get(glyph);
+        }
+        return length;
+    }
+
+    /**
+     * Draws the glyph over the last overlap columns of the rows, smushing the characters
+     * that touch
+     *
+     * @return the new width of the rows
+     */
+    private int placeGlyph(int glyph, int overlap, char[][] rows, int[] rowEnd, int length, int previousWidth) {
+        int width = glyphWidth.get(glyph);
+        // column of the glyph in the rows, negative while the rows are blank and the
+        // leading blank columns of the glyph are fitted away
+        int base = length - overlap;
+        for (int h = 0; h < height; h++) {
+            char[] row = rows[h];
+            int cell = glyphCells.get(glyph) + h * width;
+            for (int k = Math.max(0, -base); k < overlap; k++) {
+                char left = row[base + k];
+                char right = cells.get(cell + k);
+                char smushed = left == ' ' ? right : right == ' ' ? left
+                        : smush(left, right, previousWidth, width);
+                row[base + k] = smushed != 0 ? smushed : right;
+            }
+            for (int k = overlap; k < width; k++) {
+                row[base + k] = cells.get(cell + k);
+            }
+            int glyphEnd = rightEnd.get(glyph * height + h);
+            if (glyphEnd > 0) {
+                rowEnd[h] = Math.max(rowEnd[h], base + glyphEnd);
+            }
+        }
+        return base + width;
+    }
+
+    /**
+     * Number of columns the glyph can be moved into the rows, the smallest over all rows of
+     * the blank space between the rows and the glyph, plus one where the touching characters
+     * smush.
+     */
+    private int overlap(int glyph, char[][] rows, int[] rowEnd, int length, int previousWidth) {
+        if ((layout & (KERNING | SMUSHING)) == 0) return 0;
+        int width = glyphWidth.get(glyph);
+        int cell = glyphCells.get(glyph);
+        int overlap = width;
+        for (int h = 0; h < height; h++) {
+            int glyphStart = leftBlank.get(glyph * height + h);
+            int amount;
+            if (rowEnd[h] == 0) {
+                amount = glyphStart + length;
+            } else {
+                amount = glyphStart + length - rowEnd[h];
+                if (glyphStart < width && smush(rows[h][rowEnd[h] - 1],
+                        cells.get(cell + h * width + glyphStart), previousWidth, width) != 0) {
+                    amount++;
+                }
+            }
+            overlap = Math.min(overlap, amount);
+        }
+        return overlap;
+    }
+
+    /**
+     * Smushing rules of the FIGfont specification for two non space characters
+     *
+     * @return the smushed character or 0 if they do not smush
+     */
+    private char smush(char left, char right, int leftWidth, int rightWidth) {
+        if (leftWidth < 2 || rightWidth < 2) return 0;
+        if ((layout & SMUSHING) == 0) return 0;
+        if ((layout & SMUSH_RULES) == 0) {
+            // universal smushing, the right character wins over anything but a hardblank
+            if (left == hardblank) return right;
+            if (right == hardblank) return left;
+            return right;
+        }
+        if ((layout & SMUSH_HARDBLANK) != 0 && left == hardblank && right == hardblank) return left;
+        if (left == hardblank || right == hardblank) return 0;
+        if ((layout & SMUSH_EQUAL) != 0 && left == right) return left;
+        if ((layout & SMUSH_LOWLINE) != 0) {
+            if (left == '_' && "|/\\[]{}()<>".indexOf(right) >= 0) return right;
+            if (right == '_' && "|/\\[]{}()<>".indexOf(left) >= 0) return left;
+        }
+        if ((layout & SMUSH_HIERARCHY) != 0) {
+            int leftClass = hierarchyClass(left);
+            int rightClass = hierarchyClass(right);
+            if (leftClass > 0 && rightClass > 0 && leftClass != rightClass) {
+                return leftClass > rightClass ? left : right;
+            }
+        }
+        if ((layout & SMUSH_PAIR) != 0 && isOppositePair(left, right)) return '|';
+        if ((layout & SMUSH_BIG_X) != 0) {
+            if (left == '/' && right == '\\') return '|';
+            if (left == '\\' && right == '/') return 'Y';
+            if (left == '>' && right == '<') return 'X';
+        }
+        return 0;
+    }
+
+    private static boolean isOppositePair(char left, char right) {
+        switch (left) {
+            case '[':
+                return right == ']';
+            case ']':
+                return right == '[';
+            case '{':
+                return right == '}';
+            case '}':
+                return right == '{';
+            case '(':
+                return right == ')';
+            case ')':
+                return right == '(';
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Classes of the hierarchy rule, a character of a higher class replaces the lower one
+     */
+    private static int hierarchyClass(char c) {
+        switch (c) {
+            case '|':
+                return 1;
+            case '/':
+            case '\\':
+                return 2;
+            case '[':
+            case ']':
+                return 3;
+            case '{':
+            case '}':
+                return 4;
+            case '(':
+            case ')':
+                return 5;
+            case '<':
+            case '>':
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Creates a rendering of one line of text that follows edits of the text
+     */
+    public Line newLine() {
+        return new Line();
+    }
+
+    /**
+     * One rendered line that is kept between edits. Appending characters lays out the new
+     * glyphs only; for every character a checkpoint keeps the width and the row cells its glyph
+     * smushed over, so removing characters from the end restores the rows without laying out
+     * the text again.
+     */
+    public class Line {
+        private final StringBuilder text = new StringBuilder();
+        private char[][] rows = new char[height][64];
+        private final int[] rowEnd = new int[height];
+        private int length;
+        private int previousWidth;
+        /* state before every character of text: rows width, previous glyph width, row ends */
+        private int[] checkpointLength = new int[16];
+        private int[] checkpointWidth = new int[16];
+        private int[] checkpointRowEnd = new int[16 * height];
+        /* cells overwritten by every character, in undo from undoStart[i] on */
+        private int[] undoStart = new int[16];
+        private char[] undo = new char[256];
+        private int undoLength;
+
+        /**
+         * Changes the text to the given one, keeping the longest common prefix
+         */
+        public synchronized void setText(CharSequence newText) {
+            int common = 0;
+            int max = Math.min(text.length(), newText.length());
+            while (common < max && text.charAt(common) == newText.charAt(common)) common++;
+            if (common > 0 && Character.isHighSurrogate(text.charAt(common - 1))) {
+                // do not keep half of a surrogate pair
+                common--;
+            }
+            truncate(common);
+            for (int i = common; i < newText.length(); ) {
+                int codePoint = Character.codePointAt(newText, i);
+                i += Character.charCount(codePoint);
+                append(codePoint);
+            }
+        }
+
+        public synchronized void append(int codePoint) {
+            int index = text.length();
+            // a checkpoint for each char, the low surrogate of a pair gets a copy
+            int count = Character.charCount(codePoint);
+            for (int i = 0; i < count; i++) {
+                checkpoint(index + i);
+            }
+            text.appendCodePoint(codePoint);
+
+            int glyph = glyphOf(codePoint);
+            if (glyph < 0) return;
+            int width = glyphWidth.get(glyph);
+            int overlap = overlap(glyph, rows, rowEnd, length, previousWidth);
+            int saved = Math.min(overlap, length);
+            if (undoLength + saved * height > undo.length) {
+                undo = Arrays.copyOf(undo, Math.max(undo.length * 2, undoLength + saved * height));
+            }
+            for (int h = 0; h < height; h++) {
+                System.arraycopy(rows[h], length - saved, undo, undoLength, saved);
+                undoLength += saved;
+            }
+            if (length - overlap + width > rows[0].length) {
+                int capacity = Math.max(rows[0].length * 2, length - overlap + width);
+                for (int h = 0; h < height; h++) {
+                    rows[h] = Arrays.copyOf(rows[h], capacity);
+                }
+            }
+            length = placeGlyph(glyph, overlap, rows, rowEnd, length, previousWidth);
+            previousWidth = width;
+        }
+
+        private void checkpoint(int index) {
+            if (index == checkpointLength.length) {
+                checkpointLength = Arrays.copyOf(checkpointLength, index * 2);
+                checkpointWidth = Arrays.copyOf(checkpointWidth, index * 2);
+                checkpointRowEnd = Arrays.copyOf(checkpointRowEnd, index * 2 * height);
+                undoStart = Arrays.copyOf(undoStart, index * 2);
+            }
+            checkpointLength[index] = length;
+            checkpointWidth[index] = previousWidth;
+            System.arraycopy(rowEnd, 0, checkpointRowEnd, index * height, height);
+            undoStart[index] = undoLength;
+        }
+
+        /**
+         * Removes the characters after the first count ones
+         */
+        public synchronized void truncate(int count) {
+            if (count >= text.length()) return;
+            // restore the cells overwritten by the removed characters, last one first
+            for (int i = text.length() - 1; i >= count; i--) {
+                int previousLength = checkpointLength[i];
+                int saved = (undoLength - undoStart[i]) / height;
+                undoLength = undoStart[i];
+                int position = undoLength;
+                for (int h = 0; h < height; h++) {
+                    System.arraycopy(undo, position, rows[h], previousLength - saved, saved);
+                    position += saved;
+                }
+            }
+            length = checkpointLength[count];
+            previousWidth = checkpointWidth[count];
+            System.arraycopy(checkpointRowEnd, count * height, rowEnd, 0, height);
+            text.setLength(count);
+        }
+
+        public synchronized String getText() {
+            return text.toString();
+        }
+
+        /**
+         * @return width of the rendered rows in columns
+         */
+        public synchronized int getWidth() {
+            return length;
+        }
+
+        /**
+         * @return estimated heap bytes of the buffers of the line, they only grow
+         */
+        public synchronized long getEstimatedSize() {
+            return 2L * (height * rows[0].length + undo.length + text.capacity())
+                    + 4L * (rowEnd.length + checkpointLength.length + checkpointWidth.length
+                    + checkpointRowEnd.length + undoStart.length);
+        }
+
+        private void appendRows(StringBuilder out, int indent) {
+            for (int h = 0; h < height; h++) {
+                char[] row = rows[h];
+                for (int i = 0; i < indent; i++) {
+                    out.append(' ');
+                }
+                for (int i = 0; i < length; i++) {
+                    out.append(row[i] == hardblank ? ' ' : row[i]);
+                }
+                out.append('\n');
+            }
+        }
+
+        /**
+         * @return the rendered rows, in the format of {@link #convert(String)}
+         */
+        @Override
+        public synchronized String toString() {
+            char[] out = new char[height * (length + 1)];
+            int position = 0;
+            for (int h = 0; h < height; h++) {
+                char[] row = rows[h];
+                for (int i = 0; i < length; i++) {
+                    out[position++] = row[i] == hardblank ? ' ' : row[i];
+                }
+                out[position++] = '\n';
+            }
+            return new String(out);
+        }
+    }
+
+    /**
+     * Collects the glyphs of a font file into the flat tables
+     */
+    private static class GlyphTableBuilder {
+        private final int height;
+        private int[] codes = new int[128];
+        private short[] widths = new short[128];
+        private int[] cellOffsets = new int[128];
+        private short[] left = new short[128 * 8];
+        private short[] right = new short[128 * 8];
+        private final StringBuilder cells = new StringBuilder();
+        private int count;
+
+        GlyphTableBuilder(int height) {
+            this.height = height;
+        }
+
+        void add(int charCode, char[][] rows, int width) {
+            if (count == widths.length) {
+                codes = Arrays.copyOf(codes, count * 2);
+                widths = Arrays.copyOf(widths, count * 2);
+                cellOffsets = Arrays.copyOf(cellOffsets, count * 2);
+            }
+            if ((count + 1) * height > left.length) {
+                left = Arrays.copyOf(left, (count + 1) * height * 2);
+                right = Arrays.copyOf(right, (count + 1) * height * 2);
+            }
+            widths[count] = (short) width;
+            cellOffsets[count] = cells.length();
+            for (int h = 0; h < height; h++) {
+                char[] row = rows[h] == null ? new char[0] : rows[h];
+                cells.append(row);
+                for (int k = row.length; k < width; k++) cells.append(' ');
+                int start = cellOffsets[count] + h * width;
+                int l = 0;
+                while (l < width && cells.charAt(start + l) == ' ') l++;
+                int r = width;
+                while (r > 0 && cells.charAt(start + r - 1) == ' ') r--;
+                left[count * height + h] = (short) l;
+                right[count * height + h] = (short) r;
+            }
+            codes[count] = charCode;
+            count++;
+        }
+
+        /**
+         * Sorts the glyph tables by code point, the cells stay in file order
+         */
+        void build(FigletModel model) {
+            // code point and file order in one long, so that a later glyph for the same code
+            // point sorts after the earlier one and replaces it
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (long) codes[i] << 32 | i;
+            }
+            Arrays.sort(order);
+            int[] sortedCodes = new int[count];
+            short[] sortedWidths = new short[count];
+            int[] sortedCells = new int[count];
+            short[] sortedLeft = new short[count * height];
+            short[] sortedRight = new short[count * height];
+            int glyphs = 0;
+            for (int i = 0; i < count; i++) {
+                int code = (int) (order[i] >>> 32);
+                if (i + 1 < count && (int) (order[i + 1] >>> 32) == code) continue;
+                int glyph = (int) order[i];
+                sortedCodes[glyphs] = code;
+                sortedWidths[glyphs] = widths[glyph];
+                sortedCells[glyphs] = cellOffsets[glyph];
+                System.arraycopy(left, glyph * height, sortedLeft, glyphs * height, height);
+                System.arraycopy(right, glyph * height, sortedRight, glyphs * height, height);
+                glyphs++;
+            }
+            model.glyphCodes = IntBuffer.wrap(sortedCodes, 0, glyphs).slice();
+            model.glyphWidth = ShortBuffer.wrap(sortedWidths, 0, glyphs).slice();
+            model.glyphCells = IntBuffer.wrap(sortedCells, 0, glyphs).slice();
+            model.leftBlank = ShortBuffer.wrap(sortedLeft, 0, glyphs * height).slice();
+            model.rightEnd = ShortBuffer.wrap(sortedRight, 0, glyphs * height).slice();
+            char[] chars = new char[cells.length()];
+            cells.getChars(0, chars.length, chars, 0);
+            model.cells = CharBuffer.wrap(chars);
+        }
+    }
+}
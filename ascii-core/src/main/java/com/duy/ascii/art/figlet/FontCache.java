@@ -0,0 +1,178 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of loaded fonts, bounded by {@link FigletModel#getEstimatedSize()}
+ * plus the size of what is kept with each font, such as its rendered line, see
+ * {@link #setAttachedSize(String, long)}. Pinned fonts (for example the ones whose results are
+ * on screen) are never evicted, so the cache can exceed its budget by the size of the pinned
+ * fonts.
+ */
+public class FontCache {
+    private final LinkedHashMap<String, FigletModel> fonts = new LinkedHashMap<>(16, 0.75f, true);
+    /* pin count of every pinned font */
+    private final HashMap<String, Integer> pins = new HashMap<>();
+    /* bytes kept outside of every font that goes with it */
+    private final HashMap<String, Long> attached = new HashMap<>();
+    private long maxSize;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public FontCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the font or null, counted as hit or miss
+     */
+    public synchronized FigletModel get(String name) {
+        FigletModel font = fonts.get(name);
+        if (font == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return font;
+    }
+
+    public void put(String name, FigletModel font) {
+        synchronized (this) {
+            FigletModel old = fonts.put(name, font);
+            if (old != null) {
+                size -= old.getEstimatedSize();
+                // what was kept with the old font is not kept with the new one
+                Long attachedSize = attached.remove(name);
+                if (attachedSize != null) size -= attachedSize;
+            }
+            size += font.getEstimatedSize();
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Sets the bytes that are kept for a cached font outside of it and freed with it, for
+     * example the buffers of a line rendered with the font. Ignored if the font is not cached.
+     */
+    public void setAttachedSize(String name, long bytes) {
+        synchronized (this) {
+            if (!fonts.containsKey(name)) return;
+            Long old = attached.put(name, bytes);
+            size += bytes - (old == null ? 0 : old);
+        }
+        trimToSize(maxSize);
+    }
+
+    public synchronized void pin(String name) {
+        Integer count = pins.get(name);
+        pins.put(name, count == null ? 1 : count + 1);
+    }
+
+    public void unpin(String name) {
+        synchronized (this) {
+            Integer count = pins.get(name);
+            if (count == null) return;
+            if (count > 1) {
+                pins.put(name, count - 1);
+            } else {
+                pins.remove(name);
+            }
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Evicts the least recently used fonts that are not pinned until the cache is not larger
+     * than the given size
+     */
+    public void trimToSize(long targetSize) {
+        Map<String, FigletModel> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, FigletModel>> iterator = fonts.entrySet().iterator();
+            while (size > targetSize && iterator.hasNext()) {
+                Map.Entry<String, FigletModel> entry = iterator.next();
+                if (pins.containsKey(entry.getKey())) continue;
+                iterator.remove();
+                size -= entry.getValue().getEstimatedSize();
+                Long attachedSize = attached.remove(entry.getKey());
+                if (attachedSize != null) size -= attachedSize;
+                evictions++;
+                evicted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, FigletModel> entry : evicted.entrySet()) {
+            onEvicted(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Evicts every font that is not pinned
+     */
+    public void evictAll() {
+        trimToSize(-1);
+    }
+
+    /**
+     * Called without the lock after a font was evicted
+     */
+    protected void onEvicted(String name, FigletModel font) {
+    }
+
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getCount() {
+        return fonts.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FontCache{fonts=" + fonts.size() + ", pinned=" + pins.size() + ", size=" + size
+                + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "}";
+    }
+}
@@ -17,8 +17,6 @@
 
 package com.duy.ascii.art.image.converter;
 
-import android.graphics.Bitmap;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -112,7 +110,7 @@ public class AsciiConverter {
                 }
                 builder.append(String.format("Total time: %d ms", (t2 - t1) / 1000000));
                 result.debugInfo = builder.toString();
-                android.util.Log.i("Timing", result.debugInfo);
+                System.out.println("Timing: " + result.debugInfo);
             }
         } catch (InterruptedException ignored) {
         }
@@ -257,7 +255,7 @@ public class AsciiConverter {
      * Builds an ASCII image from an existing bitmap. Used to convert existing pictures; not
      * native or threaded because speed is less important.
      */
-    public Result computeResultForBitmap(Bitmap bitmap,
+    public Result computeResultForBitmap(PixelSource bitmap,
                                          int asciiRows, int asciiCols, ColorType colorType) {
         Result result = new Result();
         result.rows = asciiRows;
@@ -307,7 +305,7 @@ public class AsciiConverter {
                 result.asciiIndexes[asciiIndex] = (averageBright * result.pixelChars.length) / 256;
                 if (DEBUG) {
                     if (asciiIndex % 50 == 0) {
-                        android.util.Log.i("color", String.format("%d %d %d %d",
+                        System.out.println("color: " + String.format("%d %d %d %d",
                                 averageBright, samples, result.pixelChars.length, result.asciiIndexes[asciiIndex]));
                     }
                 }
@@ -381,6 +379,10 @@ public class AsciiConverter {
             return colorType;
         }
 
+        public String[] getPixelChars() {
+            return pixelChars;
+        }
+
         public String stringAtRowColumn(int row, int col) {
             return pixelChars[asciiIndexes[row * columns + col]];
         }
@@ -0,0 +1,38 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.image.converter;
+
+/**
+ * Read only access to ARGB pixels, so {@link AsciiConverter} does not depend on a platform image
+ * class. The methods follow android.graphics.Bitmap, which makes the Android adapter trivial.
+ */
+public interface PixelSource {
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Copies the pixels of the given rectangle into the array, packed as 0xAARRGGBB.
+     *
+     * @param pixels the array to receive the colors
+     * @param offset the first index to write into pixels
+     * @param stride the number of entries in pixels to skip between rows
+     */
+    void getPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height);
+}
@@ -0,0 +1,202 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds text art that is nearly the same as art seen before, such as a copy with different
+ * spacing or a few changed characters.
+ * <p>
+ * The art is normalized (every run of white space becomes one space) and cut into overlapping
+ * shingles of five characters. A MinHash signature of 64 values estimates the Jaccard
+ * similarity of two shingle multisets by the share of equal values; it is a one permutation
+ * MinHash, every shingle is hashed once and lowers the minimum of one of the 64 bins. Signatures
+ * are split into 8 bands of 8 values, and art is a candidate when one band is equal. That
+ * happens almost always above a similarity of 0.8 and rarely below 0.5, so a lookup compares
+ * the signatures of a handful of candidates instead of the whole catalogue.
+ * <p>
+ * Pieces are numbered in the order they are added. Not thread safe.
+ */
+public class NearDuplicateIndex {
+    public static final double DEFAULT_THRESHOLD = 0.8;
+    private static final int SHINGLE = 5;
+    private static final int HASH_BITS = 6;
+    private static final int HASHES = 1 << HASH_BITS;
+    private static final int BANDS = 8;
+    private static final int ROWS = HASHES / BANDS;
+
+    private final double threshold;
+    private final List<int[]> signatures = new ArrayList<>();
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+    public NearDuplicateIndex() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold estimated similarity, from 0 to 1, from which art counts as a duplicate
+     */
+    public NearDuplicateIndex(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the art with every run of white space replaced by one space, without leading and
+     * trailing white space
+     */
+    public static String normalize(CharSequence art) {
+        StringBuilder result = new StringBuilder(art.length());
+        boolean space = false;
+        for (int i = 0; i < art.length(); i++) {
+            char c = art.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = result.length() > 0;
+            } else {
+                if (space) result.append(' ');
+                space = false;
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static int[] signature(String normalized) {
+        int length = Math.min(SHINGLE, normalized.length());
+        long[] shingles = new long[normalized.length() - length + 1];
+        for (int start = 0; start < shingles.length; start++) {
+            long hash = 0;
+            for (int i = start; i < start + length; i++) {
+                hash = hash * 31 + normalized.charAt(i);
+            }
+            shingles[start] = hash;
+        }
+        // the n-th copy of a shingle is its own element, so art that repeats a few shingles
+        // (borders, shading) still changes little when one character changes
+        Arrays.sort(shingles);
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int copy = 0;
+        for (int i = 0; i < shingles.length; i++) {
+            copy = i > 0 && shingles[i] == shingles[i - 1] ? copy + 1 : 0;
+            long hash = mix(shingles[i] + copy * 0x9E3779B97F4A7C15L);
+            int bin = (int) (hash >>> (64 - HASH_BITS));
+            int value = (int) hash & Integer.MAX_VALUE;
+            if (value < signature[bin]) signature[bin] = value;
+        }
+        // an empty bin borrows the value of the next filled one, mixed with the distance so that
+        // two borrowed bins only agree when the bins they borrow from agree
+        boolean[] filled = new boolean[HASHES];
+        for (int bin = 0; bin < HASHES; bin++) {
+            filled[bin] = signature[bin] != Integer.MAX_VALUE;
+        }
+        for (int bin = 0; bin < HASHES; bin++) {
+            if (filled[bin]) continue;
+            for (int distance = 1; distance < HASHES; distance++) {
+                int from = (bin + distance) % HASHES;
+                if (filled[from]) {
+                    signature[bin] = (int) mix(signature[from] * 31L + distance) & Integer.MAX_VALUE;
+                    break;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, every input bit changes half of the output bits
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return key;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * @return number of the art, art that is only white space is numbered but never matches
+     */
+    public int add(CharSequence art) {
+        int id = signatures.size();
+        String normalized = normalize(art);
+        int[] signature = signature(normalized);
+        signatures.add(signature);
+        if (normalized.isEmpty()) return id;
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            List<Integer> bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>(1);
+                buckets.put(key, bucket);
+            }
+            bucket.add(id);
+        }
+        return id;
+    }
+
+    /**
+     * @return number of the added art most similar to this art if it is at least as similar as
+     * the threshold, -1 if there is none
+     */
+    public int findDuplicate(CharSequence art) {
+        String normalized = normalize(art);
+        if (normalized.isEmpty()) return -1;
+        int[] signature = signature(normalized);
+        int best = -1;
+        double bestSimilarity = threshold;
+        for (int band = 0; band < BANDS; band++) {
+            List<Integer> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) continue;
+            for (int id : bucket) {
+                double similarity = similarity(signature, signatures.get(id));
+                if (similarity > bestSimilarity || similarity == bestSimilarity && (best == -1 || id < best)) {
+                    best = id;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+}
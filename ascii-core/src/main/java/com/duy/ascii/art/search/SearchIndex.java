@@ -0,0 +1,374 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Search-as-you-type over short texts, such as the descriptions of emoji and the titles of
+ * emoticon categories. Documents are numbered by the caller, the index only maps words to them.
+ * <p>
+ * The sorted words of all documents are stored in a trie whose nodes know the range of the
+ * words that start with their prefix, so every token of a query is a prefix match that costs
+ * one walk down the trie. Every word has a posting list of its documents with the weight of
+ * the text the word was found in. A document matches when every token of the query matches
+ * one of its words; it scores the best weight per token, doubled when the word is the token
+ * itself.
+ * <pre>
+ * int magic, int version, int node count, int word count, int posting count, int document count
+ * nodes: first child, next sibling, first word, end of words (ints), label (chars),
+ * is a word (bytes); words: posting start (word count + 1 ints);
+ * postings: document (ints), weight (bytes)
+ * </pre>
+ */
+public class SearchIndex {
+    private static final int MAGIC = 0x53524348; // SRCH
+    private static final int VERSION = 1;
+    private static final int EXACT_BONUS = 2;
+
+    private final int documentCount;
+    private final IntBuffer firstChild;
+    private final IntBuffer nextSibling;
+    private final IntBuffer firstWord;
+    private final IntBuffer endWord;
+    private final CharBuffer labels;
+    private final ByteBuffer isWord;
+    private final IntBuffer postingStart;
+    private final IntBuffer postingDocuments;
+    private final ByteBuffer postingWeights;
+
+    /* per query state, only the matched documents are reset after a query */
+    private int[] matched;
+    private int[] best;
+    private int[] score;
+    private int[] touched;
+
+    private SearchIndex(int documentCount, IntBuffer firstChild, IntBuffer nextSibling,
+                        IntBuffer firstWord, IntBuffer endWord, CharBuffer labels, ByteBuffer isWord,
+                        IntBuffer postingStart, IntBuffer postingDocuments, ByteBuffer postingWeights) {
+        this.documentCount = documentCount;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.firstWord = firstWord;
+        this.endWord = endWord;
+        this.labels = labels;
+        this.isWord = isWord;
+        this.postingStart = postingStart;
+        this.postingDocuments = postingDocuments;
+        this.postingWeights = postingWeights;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * @return lower case words of the text, letters and digits only
+     */
+    public static List<String> tokenize(CharSequence text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.subSequence(start, i).toString().toLowerCase(Locale.US));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * @return the documents that match every token of the query, best first, at most limit
+     */
+    public synchronized int[] search(CharSequence query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || documentCount == 0) return new int[0];
+        if (matched == null) {
+            matched = new int[documentCount];
+            best = new int[documentCount];
+            score = new int[documentCount];
+            touched = new int[documentCount];
+        }
+        int touchedCount = 0;
+        try {
+            for (int k = 0; k < tokens.size(); k++) {
+                String token = tokens.get(k);
+                int node = find(token);
+                if (node < 0) return new int[0];
+                int exact = isWord.get(node) != 0 ? firstWord.get(node) : -1;
+                for (int word = firstWord.get(node), end = endWord.get(node); word < end; word++) {
+                    int bonus = word == exact ? EXACT_BONUS : 1;
+                    for (int p = postingStart.get(word), pEnd = postingStart.get(word + 1); p < pEnd; p++) {
+                        int document = postingDocuments.get(p);
+                        int weight = postingWeights.get(p) * bonus;
+                        if (matched[document] == k) {
+                            // first word of the document for this token
+                            matched[document] = k + 1;
+                            best[document] = weight;
+                            if (k == 0) touched[touchedCount++] = document;
+                        } else if (matched[document] == k + 1 && weight > best[document]) {
+                            best[document] = weight;
+                        }
+                    }
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    int document = touched[i];
+                    if (matched[document] == k + 1) score[document] += best[document];
+                }
+            }
+
+            long[] ranked = new long[touchedCount];
+            int count = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int document = touched[i];
+                if (matched[document] == tokens.size()) {
+                    ranked[count++] = ((long) (Integer.MAX_VALUE - score[document]) << 32) | document;
+                }
+            }
+            Arrays.sort(ranked, 0, count);
+            int[] result = new int[Math.min(count, limit)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (int) ranked[i];
+            }
+            return result;
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                int document = touched[i];
+                matched[document] = 0;
+                score[document] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return the trie node of the prefix, -1 if no word starts with it
+     */
+    private int find(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            int child = firstChild.get(node);
+            while (child >= 0 && labels.get(child) != c) {
+                child = nextSibling.get(child);
+            }
+            if (child < 0) return -1;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Writes the index in the format of {@link #read(ByteBuffer)}
+     */
+    public void write(DataOutputStream out) throws IOException {
+        int nodeCount = labels.limit();
+        int wordCount = postingStart.limit() - 1;
+        int postingCount = postingDocuments.limit();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(nodeCount);
+        out.writeInt(wordCount);
+        out.writeInt(postingCount);
+        out.writeInt(documentCount);
+        // ints first, so the int views of a read index stay aligned
+        for (IntBuffer ints : new IntBuffer[]{firstChild, nextSibling, firstWord, endWord, postingStart, postingDocuments}) {
+            for (int i = 0; i < ints.limit(); i++) out.writeInt(ints.get(i));
+        }
+        for (int i = 0; i < nodeCount; i++) out.writeChar(labels.get(i));
+        for (int i = 0; i < nodeCount; i++) out.writeByte(isWord.get(i));
+        for (int i = 0; i < postingCount; i++) out.writeByte(postingWeights.get(i));
+    }
+
+    /**
+     * Reads an index written by {@link #write(DataOutputStream)}. The tables are views of the
+     * buffer, so a memory mapped index is paged in only where a query looks.
+     */
+    public static SearchIndex read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a search index");
+        }
+        int nodeCount = buffer.getInt();
+        int wordCount = buffer.getInt();
+        int postingCount = buffer.getInt();
+        int documentCount = buffer.getInt();
+        IntBuffer firstChild = slice(buffer, 4 * nodeCount).asIntBuffer();
+        IntBuffer nextSibling = slice(buffer, 4 * nodeCount).asIntBuffer();
+        IntBuffer firstWord = slice(buffer, 4 * nodeCount).asIntBuffer();
+        IntBuffer endWord = slice(buffer, 4 * nodeCount).asIntBuffer();
+        IntBuffer postingStart = slice(buffer, 4 * (wordCount + 1)).asIntBuffer();
+        IntBuffer postingDocuments = slice(buffer, 4 * postingCount).asIntBuffer();
+        CharBuffer labels = slice(buffer, 2 * nodeCount).asCharBuffer();
+        ByteBuffer isWord = slice(buffer, nodeCount);
+        ByteBuffer postingWeights = slice(buffer, postingCount);
+        return new SearchIndex(documentCount, firstChild, nextSibling, firstWord, endWord, labels,
+                isWord, postingStart, postingDocuments, postingWeights);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(bytes);
+        buffer.position(buffer.position() + bytes);
+        return slice;
+    }
+
+    /**
+     * Collects the words of the documents and builds the trie and the posting lists
+     */
+    public static class Builder {
+        /* weight of every document of every word */
+        private final Map<String, Map<Integer, Integer>> words = new HashMap<>();
+        private int documentCount;
+
+        /**
+         * Adds the words of the text to the document
+         *
+         * @param weight 1 to 127, a higher weight ranks the document higher for these words
+         */
+        public Builder add(int document, CharSequence text, int weight) {
+            if (weight < 1 || weight > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("weight must be between 1 and 127");
+            }
+            documentCount = Math.max(documentCount, document + 1);
+            for (String word : tokenize(text)) {
+                Map<Integer, Integer> documents = words.get(word);
+                if (documents == null) {
+                    documents = new HashMap<>();
+                    words.put(word, documents);
+                }
+                Integer old = documents.get(document);
+                if (old == null || old < weight) documents.put(document, weight);
+            }
+            return this;
+        }
+
+        public SearchIndex build() {
+            String[] sorted = words.keySet().toArray(new String[words.size()]);
+            Arrays.sort(sorted);
+
+            TrieBuilder trie = new TrieBuilder();
+            int[] postingStart = new int[sorted.length + 1];
+            int postingCount = 0;
+            for (int word = 0; word < sorted.length; word++) {
+                trie.add(sorted[word], word);
+                postingStart[word] = postingCount;
+                postingCount += words.get(sorted[word]).size();
+            }
+            postingStart[sorted.length] = postingCount;
+
+            int[] documents = new int[postingCount];
+            byte[] weights = new byte[postingCount];
+            for (int word = 0; word < sorted.length; word++) {
+                Map<Integer, Integer> postings = words.get(sorted[word]);
+                Integer[] order = postings.keySet().toArray(new Integer[postings.size()]);
+                Arrays.sort(order);
+                int p = postingStart[word];
+                for (Integer document : order) {
+                    documents[p] = document;
+                    weights[p++] = (byte) (int) postings.get(document);
+                }
+            }
+            int n = trie.count;
+            return new SearchIndex(documentCount,
+                    IntBuffer.wrap(Arrays.copyOf(trie.firstChild, n)),
+                    IntBuffer.wrap(Arrays.copyOf(trie.nextSibling, n)),
+                    IntBuffer.wrap(Arrays.copyOf(trie.firstWord, n)),
+                    IntBuffer.wrap(Arrays.copyOf(trie.endWord, n)),
+                    CharBuffer.wrap(Arrays.copyOf(trie.labels, n)),
+                    ByteBuffer.wrap(Arrays.copyOf(trie.isWord, n)),
+                    IntBuffer.wrap(postingStart), IntBuffer.wrap(documents), ByteBuffer.wrap(weights));
+        }
+    }
+
+    /**
+     * Trie of words added in sorted order: the child for the next character of a word is always
+     * the last child of the node, so every add walks the path of the word once.
+     */
+    private static class TrieBuilder {
+        private int[] firstChild = new int[64];
+        private int[] lastChild = new int[64];
+        private int[] nextSibling = new int[64];
+        private int[] firstWord = new int[64];
+        private int[] endWord = new int[64];
+        private char[] labels = new char[64];
+        private byte[] isWord = new byte[64];
+        private int count;
+
+        TrieBuilder() {
+            newNode((char) 0, 0);
+            endWord[0] = 0;
+        }
+
+        void add(String word, int index) {
+            int node = 0;
+            endWord[node] = index + 1;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                int child = lastChild[node];
+                if (child < 0 || labels[child] != c) {
+                    int created = newNode(c, index);
+                    if (child < 0) {
+                        firstChild[node] = created;
+                    } else {
+                        nextSibling[child] = created;
+                    }
+                    lastChild[node] = created;
+                    child = created;
+                }
+                endWord[child] = index + 1;
+                node = child;
+            }
+            isWord[node] = 1;
+        }
+
+        private int newNode(char label, int word) {
+            if (count == labels.length) {
+                int capacity = count * 2;
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                lastChild = Arrays.copyOf(lastChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                firstWord = Arrays.copyOf(firstWord, capacity);
+                endWord = Arrays.copyOf(endWord, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                isWord = Arrays.copyOf(isWord, capacity);
+            }
+            firstChild[count] = -1;
+            lastChild[count] = -1;
+            nextSibling[count] = -1;
+            firstWord[count] = word;
+            endWord[count] = word + 1;
+            labels[count] = label;
+            return count++;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Finds the text art that looks most like a piece of art, by the shape of the art rather than its
+ * characters.
+ * <p>
+ * The signature of a piece is {@value #LENGTH} bytes: the ink of an {@value #GRID}x{@value #GRID}
+ * grid laid over the art (every character has an ink from blank to solid, and the grid stretches
+ * over small art), the aspect ratio of the art as it is drawn, and the share of each class of
+ * characters (light punctuation, lines, letters, dense symbols, blocks, box drawing, others).
+ * Signatures are compared by a weighted L1 distance, which is a metric, so they are kept in a
+ * vantage point tree: every node splits the art below it by the median distance to its vantage
+ * point, and a search skips every subtree that can not hold art closer than the k-th best found.
+ * <p>
+ * The tree is stored implicitly: the node of a range of positions is its first position, the
+ * inner half follows it and the outer half ends the range. Searches are not thread safe.
+ */
+public class ShapeIndex {
+    public static final int GRID = 8;
+    private static final int CLASSES = 7;
+    private static final int ASPECT = GRID * GRID;
+    private static final int HISTOGRAM = ASPECT + 1;
+    public static final int LENGTH = HISTOGRAM + CLASSES;
+    private static final int[] WEIGHTS = new int[LENGTH];
+
+    private static final int LIGHT = 0, LINE = 1, LETTER = 2, DENSE = 3, BLOCK = 4, BOX = 5, OTHER = 6;
+    private static final int SOLID = 4;
+    private static final String LIGHT_CHARS = ".,'`:;~-_^\"\u00B0";
+    private static final String LINE_CHARS = "|/\\()[]{}<>=+!";
+    private static final String DENSE_CHARS = "#@%&$*";
+
+    static {
+        Arrays.fill(WEIGHTS, 0, ASPECT, 1);
+        // one aspect or class value stands for the whole art, like several grid cells
+        WEIGHTS[ASPECT] = 8;
+        Arrays.fill(WEIGHTS, HISTOGRAM, LENGTH, 2);
+    }
+
+    private final byte[] signatures;
+    /* vantage point tree: art at every position, median distance of the node at a position */
+    private final int[] items;
+    private final int[] radius;
+
+    /* per search state */
+    private int[] bestItems;
+    private int[] bestDistances;
+    private int found;
+
+    /**
+     * @param signatures signatures of the art, see {@link #signature(CharSequence)}; art is
+     *                   numbered by its position in the list
+     */
+    public ShapeIndex(List<byte[]> signatures) {
+        int size = signatures.size();
+        this.signatures = new byte[size * LENGTH];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(signatures.get(i), 0, this.signatures, i * LENGTH, LENGTH);
+        }
+        items = new int[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = i;
+        }
+        radius = new int[size];
+        build(0, size, new long[size], new Random(size));
+    }
+
+    public static byte[] signature(CharSequence art) {
+        byte[] signature = new byte[LENGTH];
+        String[] lines = art.toString().split("\r?\n");
+        // blank lines around the art are not part of its shape
+        int top = 0, bottom = lines.length;
+        while (top < bottom && isBlank(lines[top])) top++;
+        while (bottom > top && isBlank(lines[bottom - 1])) bottom--;
+        int height = bottom - top;
+        // and neither are the blank columns on either side
+        int left = Integer.MAX_VALUE, right = 0;
+        for (int i = top; i < bottom; i++) {
+            String line = lines[i];
+            int end = line.length();
+            while (end > 0 && classOf(line.charAt(end - 1)) < 0) end--;
+            int begin = 0;
+            while (begin < end && classOf(line.charAt(begin)) < 0) begin++;
+            if (begin < end) {
+                left = Math.min(left, begin);
+                right = Math.max(right, end);
+            }
+        }
+        int width = right - left;
+        if (height == 0 || width <= 0) {
+            return signature;
+        }
+
+        // summed ink of the rectangle from the origin, one row and column larger than the art
+        int[] ink = new int[(height + 1) * (width + 1)];
+        int[] classes = new int[CLASSES];
+        int marks = 0;
+        for (int y = 0; y < height; y++) {
+            String line = lines[top + y];
+            int rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                char c = left + x < line.length() ? line.charAt(left + x) : ' ';
+                int type = classOf(c);
+                if (type >= 0) {
+                    classes[type]++;
+                    marks++;
+                    rowSum += inkOf(c, type);
+                }
+                ink[(y + 1) * (width + 1) + x + 1] = ink[y * (width + 1) + x + 1] + rowSum;
+            }
+        }
+
+        for (int row = 0; row < GRID; row++) {
+            int y0 = row * height / GRID;
+            int y1 = Math.max(y0 + 1, (row + 1) * height / GRID);
+            for (int column = 0; column < GRID; column++) {
+                int x0 = column * width / GRID;
+                int x1 = Math.max(x0 + 1, (column + 1) * width / GRID);
+                int sum = ink[y1 * (width + 1) + x1] - ink[y0 * (width + 1) + x1]
+                        - ink[y1 * (width + 1) + x0] + ink[y0 * (width + 1) + x0];
+                signature[row * GRID + column] = (byte) (sum * 255 / (SOLID * (y1 - y0) * (x1 - x0)));
+            }
+        }
+        // a character cell is about twice as high as wide
+        double aspect = Math.log((double) width / (2 * height)) / Math.log(2);
+        signature[ASPECT] = (byte) Math.max(0, Math.min(255, (int) Math.round(128 + 32 * aspect)));
+        for (int i = 0; i < CLASSES; i++) {
+            signature[HISTOGRAM + i] = (byte) (marks == 0 ? 0 : classes[i] * 255 / marks);
+        }
+        return signature;
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (classOf(line.charAt(i)) >= 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return class of the character, -1 for blank characters
+     */
+    private static int classOf(char c) {
+        if (Character.isWhitespace(c) || Character.isSpaceChar(c) || Character.getType(c) == Character.FORMAT) {
+            return -1;
+        }
+        if (c >= '\u2500' && c <= '\u257F') return BOX;
+        if (c >= '\u2580' && c <= '\u259F') return BLOCK;
+        if (Character.isLetterOrDigit(c) && c < 0x80) return LETTER;
+        if (LIGHT_CHARS.indexOf(c) >= 0) return LIGHT;
+        if (LINE_CHARS.indexOf(c) >= 0) return LINE;
+        if (DENSE_CHARS.indexOf(c) >= 0) return DENSE;
+        return c < 0x80 ? LETTER : OTHER;
+    }
+
+    private static int inkOf(char c, int type) {
+        switch (type) {
+            case LIGHT:
+                return 1;
+            case LINE:
+            case BOX:
+                return 2;
+            case DENSE:
+                return SOLID;
+            case BLOCK:
+                // light, medium and dark shade
+                return c == '\u2591' ? 1 : c == '\u2592' ? 2 : c == '\u2593' ? 3 : SOLID;
+            default:
+                return 3;
+        }
+    }
+
+    public static int distance(byte[] a, byte[] b) {
+        return distance(a, 0, b, 0);
+    }
+
+    private static int distance(byte[] a, int aOffset, byte[] b, int bOffset) {
+        int distance = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            distance += WEIGHTS[i] * Math.abs((a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF));
+        }
+        return distance;
+    }
+
+    /**
+     * Makes the node of the range: a random vantage point first, then the closer half of the
+     * rest, then the farther half
+     */
+    private void build(int start, int end, long[] keys, Random random) {
+        if (end - start <= 1) return;
+        int vantage = start + random.nextInt(end - start);
+        int swap = items[start];
+        items[start] = items[vantage];
+        items[vantage] = swap;
+
+        int count = end - start - 1;
+        int point = items[start] * LENGTH;
+        for (int i = 0; i < count; i++) {
+            int item = items[start + 1 + i];
+            keys[i] = (long) distance(signatures, point, signatures, item * LENGTH) << 32 | item;
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++) {
+            items[start + 1 + i] = (int) keys[i];
+        }
+        int middle = start + 1 + count / 2;
+        // inner art is at most this far from the vantage point, outer art at least
+        radius[start] = (int) (keys[count / 2] >>> 32);
+        build(start + 1, middle, keys, random);
+        build(middle, end, keys, random);
+    }
+
+    /**
+     * @param exclude number of an art to leave out, such as the art itself, or -1
+     * @return numbers of the k art closest to the signature, closest first
+     */
+    public int[] nearest(byte[] signature, int k, int exclude) {
+        bestItems = new int[k];
+        bestDistances = new int[k];
+        found = 0;
+        if (k > 0) {
+            search(signature, 0, items.length, exclude);
+        }
+        return Arrays.copyOf(bestItems, found);
+    }
+
+    private void search(byte[] query, int start, int end, int exclude) {
+        if (start >= end) return;
+        int item = items[start];
+        int distance = distance(query, 0, signatures, item * LENGTH);
+        if (item != exclude) offer(item, distance);
+        if (end - start == 1) return;
+
+        int middle = start + 1 + (end - start - 1) / 2;
+        int mu = radius[start];
+        if (distance < mu) {
+            search(query, start + 1, middle, exclude);
+            if (distance + limit() >= mu) search(query, middle, end, exclude);
+        } else {
+            search(query, middle, end, exclude);
+            if (distance - limit() <= mu) search(query, start + 1, middle, exclude);
+        }
+    }
+
+    /**
+     * @return distance of the k-th best art so far, no limit until k are found
+     */
+    private int limit() {
+        return found < bestItems.length ? Integer.MAX_VALUE / 2 : bestDistances[found - 1];
+    }
+
+    private void offer(int item, int distance) {
+        if (found == bestItems.length && distance >= bestDistances[found - 1]) return;
+        int i = found < bestItems.length ? found++ : found - 1;
+        while (i > 0 && bestDistances[i - 1] > distance) {
+            bestItems[i] = bestItems[i - 1];
+            bestDistances[i] = bestDistances[i - 1];
+            i--;
+        }
+        bestItems[i] = item;
+        bestDistances[i] = distance;
+    }
+
+    public int size() {
+        return items.length;
+    }
+}
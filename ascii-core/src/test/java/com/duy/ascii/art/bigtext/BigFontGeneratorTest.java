@@ -0,0 +1,144 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.duy.ascii.art.bigtext;
+
+import com.duy.ascii.art.database.FileResourceLoader;
+import com.duy.ascii.art.figlet.Alignment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created by Duy on 1/11/2018.
+ */
+public class BigFontGeneratorTest {
+    private BigFontGenerator mBigFontGenerator = new BigFontGenerator();
+
+    @Before
+    public void loadData() throws IOException {
+        System.out.println("BigFontGeneratorTest.loadData");
+        File file = new File("../app/src/main/assets/bigtext_json");
+        File[] files = file.listFiles();
+        InputStream[] streams = new InputStream[files.length];
+        for (int i = 0; i < files.length; i++) {
+            streams[i] = new FileInputStream(files[i]);
+        }
+        mBigFontGenerator.load(streams);
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void convert() throws Exception {
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            String convert = mBigFontGenerator.convert("hello", i);
+            System.out.println(convert);
+            assertFalse(convert.trim().isEmpty());
+        }
+    }
+
+    @Test
+    public void lineFollowsEdits() throws Exception {
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            BigFontGenerator.Line line = mBigFontGenerator.newLine(i);
+            for (String text : new String[]{"h", "he", "hello", "help", "", "world", "w"}) {
+                line.setText(text);
+                assertEquals(text.isEmpty() ? "" : mBigFontGenerator.convert(text, i), line.toString());
+            }
+        }
+    }
+
+    @Test
+    public void convertsEveryLine() throws Exception {
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            String hello = mBigFontGenerator.convert("hello", i);
+            String world = mBigFontGenerator.convert("world", i);
+            assertEquals(hello + "\n" + world, mBigFontGenerator.convert("hello\nworld", i));
+            int height = hello.split("\n", -1).length;
+            assertEquals(3 * height, mBigFontGenerator.convert("hello\n\nworld", i).split("\n", -1).length);
+        }
+    }
+
+    @Test
+    public void wrapsAtSpaces() throws Exception {
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            String hello = mBigFontGenerator.convert("hello", i, 1000, Alignment.LEFT);
+            int width = 0;
+            for (String row : hello.split("\n")) width = Math.max(width, row.length());
+            String[] rows = mBigFontGenerator.convert("hello hello", i, width, Alignment.RIGHT).split("\n");
+            int height = hello.split("\n").length;
+            assertEquals(2 * height, rows.length);
+            for (int j = 0; j < rows.length; j++) {
+                assertTrue(rows[j].length() <= width);
+                assertEquals(rows[j % height], rows[j]);
+            }
+        }
+    }
+
+    @Test
+    public void convertsEveryCharacterOfTheFont() throws Exception {
+        String json = "{\"A\": \"/\\\\\\r\\n||\", \"1\": \"1\\r\\n1\", \"!\": \"!\\n.\", \" \": \"__\\r\\n__\"}";
+        BigFontGenerator generator = new BigFontGenerator();
+        generator.load(new InputStream[]{new ByteArrayInputStream(json.getBytes("UTF-8"))});
+        assertEquals("/\\__1!\n||__1.", generator.convert("a 1!", 0));
+        assertEquals(1, generator.getFonts("A 1!").cardinality());
+        // no font has a B, it falls back to the character itself
+        assertEquals(1, generator.getFonts("B").cardinality());
+        assertEquals("/\\ \n||B", generator.convert("aB", 0));
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            // the bundled fonts have letters only
+            String digits = mBigFontGenerator.convert("a1 b", i);
+            assertTrue(digits.contains("1"));
+            assertEquals(digits, mBigFontGenerator.convert("a1 b", i, 1000, Alignment.LEFT));
+            assertTrue(mBigFontGenerator.getFonts("a1 b").get(i));
+        }
+        for (int i = 0; i < mBigFontGenerator.getSize(); i++) {
+            assertEquals(mBigFontGenerator.convert("HELLO WORLD", i), mBigFontGenerator.convert("hello world", i));
+        }
+    }
+
+    @Test
+    public void loadsFontsOnFirstUse() throws Exception {
+        BigFontGenerator lazy = new BigFontGenerator();
+        lazy.load(new FileResourceLoader(new File("../app/src/main/assets")), "bigtext_json");
+        assertEquals(mBigFontGenerator.getSize(), lazy.getSize());
+        assertFalse(lazy.isLoaded(1));
+        assertEquals(0, lazy.getFonts("hello").cardinality());
+
+        BigFontGenerator font1 = new BigFontGenerator();
+        InputStream stream = new FileInputStream("../app/src/main/assets/bigtext_json/font1.json");
+        font1.load(new InputStream[]{stream});
+        stream.close();
+        assertEquals(font1.convert("hello", 0), lazy.convert("hello", 1));
+        assertTrue(lazy.isLoaded(1));
+        assertFalse(lazy.isLoaded(0));
+        assertTrue(lazy.getFonts("hello").get(1));
+        assertEquals(1, lazy.getFonts("hello").cardinality());
+    }
+}
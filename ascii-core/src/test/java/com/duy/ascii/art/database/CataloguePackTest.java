@@ -0,0 +1,80 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CataloguePackTest {
+    private static final File ASSETS = new File("../app/src/main/assets");
+
+    @Test
+    public void packsEveryCategoryOfTheAssets() throws Exception {
+        FileResourceLoader assets = new FileResourceLoader(ASSETS);
+        CataloguePack pack = CataloguePack.build(assets);
+
+        String[] files = assets.list("emoticons");
+        List<CataloguePack.Category> emoticons = pack.getCategories(CataloguePack.EMOTICONS);
+        assertEquals(files.length, emoticons.size());
+        for (int i = 0; i < files.length; i++) {
+            JSONObject json = JsonBridge.getJson(assets, "emoticons/" + files[i]);
+            CataloguePack.Category category = emoticons.get(i);
+            assertEquals(json.getString("title"), category.getTitle());
+            assertEquals(json.getString("description"), category.getDescription());
+            JSONArray data = json.getJSONArray("data");
+            assertEquals(data.length(), category.size());
+            for (int j = 0; j < data.length(); j++) {
+                assertEquals(data.getString(j), category.get(j, 0));
+            }
+        }
+
+        files = assets.list("emoji");
+        List<CataloguePack.Category> emoji = pack.getCategories(CataloguePack.EMOJI);
+        assertEquals(files.length, emoji.size());
+        JSONArray data = JsonBridge.getJson(assets, "emoji/" + files[0]).getJSONArray("data");
+        CataloguePack.Category category = emoji.get(0);
+        assertEquals(data.length(), category.size());
+        for (int j = 0; j < data.length(); j++) {
+            JSONObject item = data.getJSONObject(j);
+            assertEquals(item.getString("emoji"), category.get(j, CataloguePack.EMOJI_CHARACTER));
+            assertEquals(item.getString("desc"), category.get(j, CataloguePack.EMOJI_DESCRIPTION));
+        }
+        assertEquals(0, pack.getCategories("fonts").size());
+    }
+
+    @Test
+    public void decodesCategoriesOnFirstUse() throws Exception {
+        CataloguePack pack = CataloguePack.build(new FileResourceLoader(ASSETS));
+        List<CataloguePack.Category> categories = pack.getCategories(CataloguePack.EMOTICONS);
+        CataloguePack.Category category = categories.get(1);
+        assertFalse(category.isDecoded());
+        assertEquals(category.size(), category.getValues(0).size());
+        assertTrue(category.isDecoded());
+        assertFalse(categories.get(0).isDecoded());
+        assertFalse(categories.get(2).isDecoded());
+    }
+}
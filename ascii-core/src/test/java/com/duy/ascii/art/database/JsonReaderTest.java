@@ -0,0 +1,142 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonReaderTest {
+
+    @Test
+    public void readsEveryToken() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader(
+                "{\"a\": [1, -2.5e1, true, null, \"x\\\"\\u00e9\\n\"],\n \"b\" : {}, \"c\": []}"));
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        assertEquals(-25, reader.nextLong());
+        assertTrue(reader.nextBoolean());
+        assertEquals(JsonReader.Token.NULL, reader.peek());
+        reader.nextNull();
+        assertEquals("x\"é\n", reader.nextString());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.skipValue();
+        assertEquals("c", reader.nextName());
+        reader.beginArray();
+        reader.endArray();
+        reader.endObject();
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void readsStringsLongerThanTheBuffer() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append(i % 7 == 0 ? "\\\\" : "═");
+        }
+        JsonReader reader = JsonBridge.newReader(new ByteArrayInputStream(
+                ("[\"" + text + "\"]").getBytes("UTF-8")));
+        reader.beginArray();
+        assertEquals(text.toString().replace("\\\\", "\\"), reader.nextString());
+        reader.endArray();
+    }
+
+    @Test
+    public void reportsTheLineOfAnError() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("{\n\"a\": 1\n\"b\": 2}"));
+        reader.beginObject();
+        reader.nextName();
+        reader.nextInt();
+        try {
+            reader.nextName();
+            fail();
+        } catch (IOException e) {
+            assertEquals("Expected , or } at line 3", e.getMessage());
+        }
+
+        String[] malformed = {"[", "[1,]", "[,1]", "{\"a\":}", "{\"a\":1", "[\"a"};
+        for (String json : malformed) {
+            try {
+                reader = new JsonReader(new StringReader(json));
+                reader.skipValue();
+                reader.peek();
+                fail(json);
+            } catch (IOException e) {
+                assertTrue(json + ": " + e.getMessage(), e.getMessage().endsWith(" at line 1"));
+            }
+        }
+    }
+
+    @Test
+    public void streamsTheSameArrayAsTheTree() throws Exception {
+        FileResourceLoader assets = new FileResourceLoader(new File("../app/src/main/assets"));
+        String path = "emoji/" + assets.list("emoji")[0];
+        JSONArray tree = JsonBridge.getJson(assets, path).getJSONArray("data");
+        final List<String> streamed = new ArrayList<>();
+        JsonReader reader = JsonBridge.openReader(assets, path);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("data")) {
+                    reader.skipValue();
+                    continue;
+                }
+                JsonBridge.readArray(reader, new JsonBridge.ElementHandler() {
+                    @Override
+                    public void onElement(JsonReader reader, int index) throws IOException {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String name = reader.nextName();
+                            if (name.equals("emoji")) {
+                                streamed.add(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                });
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+        assertEquals(tree.length(), streamed.size());
+        for (int i = 0; i < tree.length(); i++) {
+            JSONObject item = tree.getJSONObject(i);
+            assertEquals(item.getString("emoji"), streamed.get(i));
+        }
+    }
+}
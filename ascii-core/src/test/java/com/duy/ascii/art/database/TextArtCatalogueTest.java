@@ -0,0 +1,67 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.database;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TextArtCatalogueTest {
+    private static final String JSON = "../app/src/main/assets/new_ascii_art.json";
+
+    @Test
+    public void pagesThroughEveryEntry() throws Exception {
+        TextArtCatalogue catalogue;
+        JSONArray tree;
+        InputStream in = new FileInputStream(JSON);
+        try {
+            catalogue = TextArtCatalogue.build(in);
+        } finally {
+            in.close();
+        }
+        in = new FileInputStream(JSON);
+        try {
+            tree = JsonBridge.getJson(in).getJSONArray("ascii_art");
+        } finally {
+            in.close();
+        }
+
+        assertEquals(tree.length(), catalogue.size());
+        int position = 0;
+        while (position < catalogue.size()) {
+            List<TextArtCatalogue.Entry> page = catalogue.getPage(position, 64);
+            for (TextArtCatalogue.Entry entry : page) {
+                JSONObject item = tree.getJSONObject(position++);
+                assertEquals(item.getString("content"), entry.content);
+                assertEquals(item.getString("name"), entry.name);
+                assertEquals(item.getLong("time"), entry.time);
+                assertEquals(item.getInt("category"), entry.category);
+                assertEquals(item.getInt("star"), entry.star);
+            }
+        }
+        assertEquals(tree.length(), position);
+        assertEquals(0, catalogue.getPage(catalogue.size(), 64).size());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoverageIndexTest {
+    @Test
+    public void intersectsFontsOfEveryCharacter() {
+        CoverageIndex index = new CoverageIndex(3);
+        for (char c = 'a'; c <= 'z'; c++) {
+            index.add(0, c);
+            index.add(1, c);
+        }
+        index.add(1, 0x1F600);
+        index.add(2, 'a');
+
+        BitSet fonts = index.getFonts("ab");
+        assertEquals(2, fonts.cardinality());
+        assertTrue(fonts.get(0) && fonts.get(1));
+        assertEquals(3, index.getFonts("a\na").cardinality());
+        assertEquals(1, index.getFonts("a\ud83d\ude00").cardinality());
+        assertEquals(0, index.getFonts("a?").cardinality());
+        assertEquals(3, index.getFonts("").cardinality());
+    }
+}
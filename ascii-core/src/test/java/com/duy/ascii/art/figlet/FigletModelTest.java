@@ -0,0 +1,201 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FigletModelTest {
+
+    private static FigletModel load(String name) throws IOException {
+        InputStream in = new FileInputStream("../app/src/main/assets/fonts/" + name);
+        try {
+            return new FigletModel(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Font of height 1 where every glyph is the character followed by a blank column
+     */
+    private static FigletModel tinyFont(int oldLayout) throws IOException {
+        StringBuilder font = new StringBuilder("flf2a$ 1 1 4 " + oldLayout + " 1\ntiny\n");
+        for (char c = 32; c < 127; c++) {
+            font.append(c == ' ' ? "$$" : c + " ").append("@@\n");
+        }
+        // code tagged glyphs beyond the German characters, out of order
+        font.append("0x1F600 GRINNING FACE\n:D@@\n");
+        font.append("8364 EURO SIGN\nE @@\n");
+        return new FigletModel(new ByteArrayInputStream(font.toString().getBytes("UTF-8")));
+    }
+
+    @Test
+    public void smushesLikeFiglet() throws Exception {
+        String expected = "" +
+                " _   _ _   _   _                   \n" +
+                "| | | (_) | |_| |__   ___ _ __ ___ \n" +
+                "| |_| | | | __| '_ \\ / _ \\ '__/ _ \\\n" +
+                "|  _  | | | |_| | | |  __/ | |  __/\n" +
+                "|_| |_|_|  \\__|_| |_|\\___|_|  \\___|\n" +
+                "                                   \n";
+        assertEquals(expected, load("standard.font").convert("Hi there"));
+    }
+
+    @Test
+    public void zippedFont() throws Exception {
+        File file = new File("../app/src/main/assets/fonts/standard.font");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(bytes);
+        zip.putNextEntry(new ZipEntry("standard.flf"));
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) zip.write(buffer, 0, read);
+        } finally {
+            in.close();
+        }
+        zip.close();
+        FigletModel zipped = new FigletModel(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(load("standard.font").convert("Hi there"), zipped.convert("Hi there"));
+    }
+
+    @Test
+    public void toiletFont() throws Exception {
+        StringBuilder font = new StringBuilder("tlf2a$ 1 1 4 -1 1\ntoilet\n");
+        for (char c = 32; c < 127; c++) {
+            font.append(c == 'A' ? "\u2584\u2588\u2584" : c + " ").append("@@\n");
+        }
+        font.append("0x2665 BLACK HEART SUIT\n\u2665\u2665@@\n");
+        FigletModel model = new FigletModel(new ByteArrayInputStream(font.toString().getBytes("UTF-8")));
+        assertEquals("\u2584\u2588\u2584\u2665\u2665\n", model.convert("A\u2665"));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAFont() throws Exception {
+        new FigletModel(new ByteArrayInputStream("hello\nworld\n".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void fullWidth() throws Exception {
+        FigletModel font = tinyFont(-1);
+        assertEquals(0, font.layout);
+        assertEquals("a b   c \n", font.convert("ab c"));
+    }
+
+    @Test
+    public void kerning() throws Exception {
+        FigletModel font = tinyFont(0);
+        assertEquals(FigletModel.KERNING, font.layout);
+        // the hardblank of the space glyph is not kerned away
+        assertEquals("ab  c \n", font.convert("ab c"));
+    }
+
+    @Test
+    public void newLinesAndMissingGlyphs() throws Exception {
+        FigletModel font = tinyFont(-1);
+        assertEquals("a \nb \n", font.convert("a\u00e9\nb"));
+    }
+
+    @Test
+    public void fontPack() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FigletFontPack.write(new File("../app/src/main/assets/fonts"), out);
+        FigletFontPack pack = new FigletFontPack(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(new File("../app/src/main/assets/fonts").list().length, pack.getFontNames().length);
+        for (String name : new String[]{"standard.font", "banner3.font", "slant.font"}) {
+            FigletModel packed = pack.getFont(name);
+            assertEquals(load(name).convert("Hello, World!"), packed.convert("Hello, World!"));
+            assertEquals(load(name).fontName, packed.fontName);
+        }
+        assertNull(pack.getFont("missing.font"));
+        assertTrue(pack.getFontNamesFor("Hello").contains("standard.font"));
+        assertTrue(pack.getFontNamesFor("\u4e00").isEmpty());
+    }
+
+    @Test
+    public void lineFollowsEdits() throws Exception {
+        Random random = new Random(42);
+        String alphabet = "abcXYZ /\\|_[](){}<>-=!";
+        for (String name : new String[]{"standard.font", "slant.font", "banner3.font", "big.font"}) {
+            FigletModel font = load(name);
+            FigletModel.Line line = font.newLine();
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                if (text.length() > 0 && random.nextInt(3) == 0) {
+                    text.setLength(random.nextInt(text.length()));
+                } else {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                line.setText(text);
+                assertEquals(name + " " + text, font.convert(text.toString()), line.toString());
+            }
+        }
+    }
+
+    @Test
+    public void codeTaggedGlyphs() throws Exception {
+        FigletModel font = tinyFont(-1);
+        assertEquals(95 + 2, font.getGlyphCount());
+        assertEquals("a E :D\n", font.convert("a\u20ac\ud83d\ude00"));
+
+        FigletModel.Line line = font.newLine();
+        line.setText("\ud83d\ude00a");
+        line.setText("\ud83d\ude01");
+        assertEquals("\n", line.toString());
+        line.setText("\u20ac\ud83d\ude00");
+        assertEquals("E :D\n", line.toString());
+    }
+
+    @Test
+    public void wrapsToWidth() throws Exception {
+        FigletModel font = tinyFont(-1);
+        assertEquals("a b \nc d \n", font.convert("ab  cd", 5, Alignment.LEFT));
+        assertEquals(" a b \n c d \n", font.convert("ab cd", 6, Alignment.CENTER));
+        assertEquals(" a \n b \n", font.convert("ab", 3, Alignment.RIGHT));
+        assertEquals("a   b \n\nc \n", font.convert("a b\n\nc", 10, Alignment.LEFT));
+
+        FigletModel standard = load("standard.font");
+        String message = "the quick brown fox jumps over the lazy dog";
+        String wrapped = standard.convert(message, 40, Alignment.LEFT);
+        StringBuilder expected = new StringBuilder();
+        for (String line : new String[]{"the", "quick", "brown", "fox", "jumps", "over the", "lazy dog"}) {
+            expected.append(standard.convert(line));
+        }
+        assertEquals(expected.toString(), wrapped);
+        for (String row : wrapped.split("\n")) {
+            assertTrue(row.length() <= 40);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.figlet;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FontCacheTest {
+    private static FigletModel load(String name) throws IOException {
+        InputStream in = new FileInputStream("../app/src/main/assets/fonts/" + name);
+        try {
+            return new FigletModel(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedUnpinnedFonts() throws Exception {
+        FigletModel standard = load("standard.font");
+        FigletModel slant = load("slant.font");
+        FigletModel small = load("small.font");
+        final List<String> evicted = new ArrayList<>();
+        FontCache cache = new FontCache(standard.getEstimatedSize() + slant.getEstimatedSize()
+                + small.getEstimatedSize() - 1) {
+            @Override
+            protected void onEvicted(String name, FigletModel font) {
+                evicted.add(name);
+            }
+        };
+        cache.put("standard", standard);
+        cache.put("slant", slant);
+        cache.pin("standard");
+        cache.put("small", small);
+
+        // standard is the eldest but pinned
+        assertEquals("[slant]", evicted.toString());
+        assertNotNull(cache.get("standard"));
+        assertNull(cache.get("slant"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(cache.getSize() <= cache.getMaxSize());
+
+        cache.evictAll();
+        assertEquals(1, cache.getCount());
+        cache.unpin("standard");
+        cache.evictAll();
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void countsTheLinesOfTheFonts() throws Exception {
+        FigletModel standard = load("standard.font");
+        FigletModel slant = load("slant.font");
+        FigletModel.Line line = standard.newLine();
+        long empty = line.getEstimatedSize();
+        line.setText("a rather long line that grows the buffers of the line");
+        assertTrue(line.getEstimatedSize() > empty);
+
+        final List<String> evicted = new ArrayList<>();
+        FontCache cache = new FontCache(standard.getEstimatedSize() + slant.getEstimatedSize()
+                + empty) {
+            @Override
+            protected void onEvicted(String name, FigletModel font) {
+                evicted.add(name);
+            }
+        };
+        cache.put("standard", standard);
+        cache.put("slant", slant);
+        cache.setAttachedSize("standard", empty);
+        assertEquals(0, cache.getEvictions());
+        cache.get("standard");
+        cache.setAttachedSize("standard", line.getEstimatedSize());
+        assertEquals("[slant]", evicted.toString());
+        assertEquals(standard.getEstimatedSize() + line.getEstimatedSize(), cache.getSize());
+
+        cache.setAttachedSize("slant", 1);
+        assertEquals(standard.getEstimatedSize() + line.getEstimatedSize(), cache.getSize());
+        cache.evictAll();
+        assertEquals(0, cache.getSize());
+
+        // the line of a replaced font is not counted for the new one
+        cache.put("standard", standard);
+        cache.setAttachedSize("standard", empty);
+        cache.put("standard", standard);
+        assertEquals(standard.getEstimatedSize(), cache.getSize());
+    }
+}
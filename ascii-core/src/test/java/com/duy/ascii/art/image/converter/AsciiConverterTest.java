@@ -0,0 +1,82 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.image.converter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsciiConverterTest {
+
+    /**
+     * Horizontal gradient from black to white
+     */
+    private static PixelSource gradient(final int width, final int height) {
+        return new PixelSource() {
+            @Override
+            public int getWidth() {
+                return width;
+            }
+
+            @Override
+            public int getHeight() {
+                return height;
+            }
+
+            @Override
+            public void getPixels(int[] pixels, int offset, int stride, int x, int y, int w, int h) {
+                for (int row = 0; row < h; row++) {
+                    for (int col = 0; col < w; col++) {
+                        int gray = 255 * (x + col) / (width - 1);
+                        pixels[offset + row * stride + col] = 0xff000000 | (gray << 16) | (gray << 8) | gray;
+                    }
+                }
+            }
+        };
+    }
+
+    @Test
+    public void computeResultForBitmap() {
+        AsciiConverter converter = new AsciiConverter();
+        AsciiConverter.Result result = converter.computeResultForBitmap(gradient(160, 90),
+                9, 16, AsciiConverter.ColorType.NONE);
+        assertEquals(9, result.rows);
+        assertEquals(16, result.columns);
+        for (int row = 0; row < result.rows; row++) {
+            assertEquals(" ", result.stringAtRowColumn(row, 0));
+            assertEquals("#", result.stringAtRowColumn(row, result.columns - 1));
+            for (int col = 1; col < result.columns; col++) {
+                assertTrue(result.asciiIndexAtRowColumn(row, col) >= result.asciiIndexAtRowColumn(row, col - 1));
+            }
+        }
+    }
+
+    @Test
+    public void fullColor() {
+        AsciiConverter converter = new AsciiConverter();
+        AsciiConverter.Result result = converter.computeResultForBitmap(gradient(100, 100),
+                10, 10, AsciiConverter.ColorType.FULL_COLOR);
+        int first = result.colorAtRowColumn(0, 0);
+        int last = result.colorAtRowColumn(0, 9);
+        assertEquals(0xff000000, first & 0xff000000);
+        assertTrue((first & 0xff) < 32);
+        assertTrue((last & 0xff) > 200);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import com.duy.ascii.art.database.TextArtCatalogue;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NearDuplicateIndexTest {
+    private static final String CAT =
+            "  /\\_/\\  \n" +
+            " ( o.o ) \n" +
+            "  > ^ <  \n" +
+            " /     \\ \n" +
+            "(_______)";
+
+    @Test
+    public void ignoresWhiteSpace() throws Exception {
+        assertEquals("/\\_/\\ ( o.o ) > ^ <", NearDuplicateIndex.normalize("  /\\_/\\  \n ( o.o ) \n\t > ^ <  \n\n"));
+
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.add("(╯°□°）╯︵ ┻━┻ flipping the table");
+        index.add(CAT);
+        assertEquals(1, index.findDuplicate(CAT.replace("\n", "   \r\n") + "\n\n"));
+        assertEquals(-1, index.findDuplicate("┬─┬ノ( º _ ºノ) putting the table back"));
+        assertEquals(-1, index.findDuplicate(" \n "));
+    }
+
+    @Test
+    public void findsNearlyTheSameArt() throws Exception {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        InputStream in = new FileInputStream("../app/src/main/assets/new_ascii_art.json");
+        TextArtCatalogue catalogue;
+        try {
+            catalogue = TextArtCatalogue.build(in);
+        } finally {
+            in.close();
+        }
+        for (int i = 0; i < catalogue.size(); i++) {
+            index.add(catalogue.get(i).content);
+        }
+        assertEquals(catalogue.size(), index.size());
+
+        int checked = 0;
+        for (int i = 0; i < catalogue.size(); i++) {
+            String art = catalogue.get(i).content;
+            if (NearDuplicateIndex.normalize(art).length() < 400) continue;
+            // every piece finds itself or an earlier copy of itself
+            int found = index.findDuplicate(art);
+            assertTrue(found >= 0 && found <= i);
+            // one changed character in two hundred is still the same art
+            char[] edited = art.toCharArray();
+            for (int j = 100; j < edited.length; j += 200) {
+                if (!Character.isWhitespace(edited[j])) edited[j] = '#';
+            }
+            assertTrue(index.findDuplicate(new String(edited)) >= 0);
+            checked++;
+        }
+        assertTrue(checked > 100);
+    }
+}
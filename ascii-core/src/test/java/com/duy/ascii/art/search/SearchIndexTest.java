@@ -0,0 +1,79 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SearchIndexTest {
+
+    private static SearchIndex sample() {
+        return new SearchIndex.Builder()
+                .add(0, "Grinning Face", 1)
+                .add(1, "Face with Tears of Joy", 1)
+                .add(2, "Grinning Cat Face", 1)
+                .add(3, "Happy", 3)
+                .add(3, "a grin from ear to ear", 1)
+                .add(4, "Facepalm", 1)
+                .build();
+    }
+
+    @Test
+    public void prefixesOfEveryToken() throws Exception {
+        SearchIndex index = sample();
+        assertEquals(5, index.getDocumentCount());
+        // exact words rank above longer words, then by document
+        assertArrayEquals(new int[]{0, 1, 2, 4}, index.search("face", 10));
+        assertArrayEquals(new int[]{3, 0, 2}, index.search("GRIN", 10));
+        assertArrayEquals(new int[]{2}, index.search("grin ca", 10));
+        assertArrayEquals(new int[]{0, 2}, index.search("face, grinning", 10));
+        assertArrayEquals(new int[0], index.search("grinning joy", 10));
+        assertArrayEquals(new int[0], index.search("dog", 10));
+        assertArrayEquals(new int[0], index.search("  ", 10));
+        assertArrayEquals(new int[]{0}, index.search("fac", 1));
+    }
+
+    @Test
+    public void weightsRank() throws Exception {
+        SearchIndex index = new SearchIndex.Builder()
+                .add(0, "a happy cat", 1)
+                .add(1, "Happy", 3)
+                .build();
+        assertArrayEquals(new int[]{1, 0}, index.search("hap", 10));
+    }
+
+    @Test
+    public void readsWhatItWrites() throws Exception {
+        SearchIndex index = sample();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        index.write(out);
+        out.close();
+        SearchIndex read = SearchIndex.read(ByteBuffer.wrap(bytes.toByteArray()));
+        for (String query : new String[]{"face", "grin", "grin ca", "ear", "t", "facepalm"}) {
+            assertArrayEquals(query, index.search(query, 10), read.search(query, 10));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.search;
+
+import com.duy.ascii.art.database.TextArtCatalogue;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ShapeIndexTest {
+
+    @Test
+    public void signatureIgnoresSurroundingSpace() throws Exception {
+        String art = " /\\_/\\\n( o.o )\n > ^ <";
+        assertArrayEquals(ShapeIndex.signature(art), ShapeIndex.signature(
+                "\n\n    " + art.replace("\n", "   \r\n    ") + "\n  \n"));
+        assertEquals(ShapeIndex.LENGTH, ShapeIndex.signature("").length);
+    }
+
+    @Test
+    public void findsTheSameNeighboursAsAFullScan() throws Exception {
+        InputStream in = new FileInputStream("../app/src/main/assets/new_ascii_art.json");
+        TextArtCatalogue catalogue;
+        try {
+            catalogue = TextArtCatalogue.build(in);
+        } finally {
+            in.close();
+        }
+        List<byte[]> signatures = new ArrayList<>();
+        for (int i = 0; i < catalogue.size(); i++) {
+            signatures.add(ShapeIndex.signature(catalogue.get(i).content));
+        }
+        ShapeIndex index = new ShapeIndex(signatures);
+        assertEquals(catalogue.size(), index.size());
+
+        for (int query = 0; query < signatures.size(); query += 37) {
+            byte[] signature = signatures.get(query);
+            int[] nearest = index.nearest(signature, 10, query);
+            assertEquals(10, nearest.length);
+
+            int[] scan = new int[signatures.size() - 1];
+            int count = 0;
+            for (int i = 0; i < signatures.size(); i++) {
+                if (i != query) scan[count++] = ShapeIndex.distance(signature, signatures.get(i));
+            }
+            Arrays.sort(scan);
+            for (int i = 0; i < nearest.length; i++) {
+                // ties can come in any order, the distances can not
+                assertEquals(scan[i], ShapeIndex.distance(signature, signatures.get(nearest[i])));
+            }
+        }
+    }
+}
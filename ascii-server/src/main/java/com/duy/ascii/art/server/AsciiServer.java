@@ -0,0 +1,578 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.server;
+
+import com.duy.ascii.art.bigtext.BigFontGenerator;
+import com.duy.ascii.art.cli.BufferedImagePixelSource;
+import com.duy.ascii.art.cli.OutputFormat;
+import com.duy.ascii.art.database.FileResourceLoader;
+import com.duy.ascii.art.database.ResourceLoader;
+import com.duy.ascii.art.figlet.Alignment;
+import com.duy.ascii.art.figlet.FigletModel;
+import com.duy.ascii.art.image.converter.AsciiConverter;
+import com.duy.ascii.art.image.converter.AsciiConverter.ColorType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Embedded HTTP service rendering figlet, big text and images with the ascii-core engines.
+ * <pre>
+ * GET  /figlet?text=..&amp;font=standard.font&amp;format=text&amp;width=80&amp;align=left
+ * GET  /bigtext?text=..&amp;font=0&amp;format=text&amp;width=80&amp;align=left
+ * POST /image?color=ANSI_COLOR&amp;columns=120&amp;format=html   (body: the image file)
+ * GET  /stats
+ * </pre>
+ * Identical requests are answered from a byte bounded LRU {@link RenderCache}. Identical
+ * requests arriving while the first one is still rendering wait for that render instead of
+ * starting their own (the X-Cache response header is HIT, MISS or COALESCED). Renders run on a
+ * fixed pool with a bounded queue; when it is full the request is answered with 429 at once
+ * instead of piling up latency.
+ */
+public class AsciiServer {
+    static final String USAGE = "usage: ascii-server [options]\n" +
+            "  --port <n>          listening port (default 8080)\n" +
+            "  --assets <dir>      assets directory of the app (default app/src/main/assets)\n" +
+            "  --threads <n>       render threads (default number of cores)\n" +
+            "  --queue <n>         renders waiting for a thread before 429 (default 64)\n" +
+            "  --cache-mb <n>      size of the result cache (default 64)\n" +
+            "  --max-upload-mb <n> largest accepted image (default 8)";
+    static final int MAX_TEXT_LENGTH = 1000;
+    static final int MAX_WIDTH = 1000;
+    static final int MAX_COLUMNS = 500;
+    // character cells are 70% as wide as they are high, see AsciiRenderer
+    private static final float CHAR_ASPECT = 0.7f / 0.9f;
+
+    private final Options options;
+    private final ResourceLoader loader;
+    private final RenderCache cache;
+    private final ConcurrentHashMap<String, FutureTask<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final ConcurrentHashMap<String, FigletModel> figletFonts = new ConcurrentHashMap<>();
+    private final Set<String> figletFontNames = new HashSet<>();
+    private final BigFontGenerator bigFonts = new BigFontGenerator();
+    private ThreadPoolExecutor renderPool;
+    private ExecutorService httpPool;
+    private HttpServer server;
+
+    public AsciiServer(Options options) {
+        this.options = options;
+        this.loader = new FileResourceLoader(options.assets);
+        this.cache = new RenderCache(options.cacheBytes);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(USAGE);
+            return;
+        }
+        final AsciiServer server = new AsciiServer(options);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        });
+        System.err.println("Listening on port " + server.getPort());
+    }
+
+    public void start() throws IOException {
+        figletFontNames.addAll(Arrays.asList(loader.list("fonts")));
+        String[] names = loader.list("bigtext_json");
+        InputStream[] streams = new InputStream[names.length];
+        for (int i = 0; i < names.length; i++) {
+            streams[i] = loader.open("bigtext_json/" + names[i]);
+        }
+        bigFonts.load(streams);
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+
+        renderPool = new ThreadPoolExecutor(options.threads, options.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(options.queue), new ThreadPoolExecutor.AbortPolicy());
+        // connection threads mostly wait for renders, coalesced requests wait on the same one
+        httpPool = Executors.newFixedThreadPool(options.threads + options.queue);
+        server = HttpServer.create(new InetSocketAddress(options.port), 0);
+        server.setExecutor(httpPool);
+        server.createContext("/figlet", new RenderHandler("figlet") {
+            @Override
+            Render prepare(HttpExchange exchange, Map<String, String> query) throws IOException {
+                final String text = text(query);
+                final String font = query.containsKey("font") ? query.get("font") : "standard.font";
+                if (!figletFontNames.contains(font)) {
+                    throw new IllegalArgumentException("Unknown font " + font);
+                }
+                final OutputFormat format = format(query);
+                final int width = width(query);
+                final Alignment align = align(query);
+                String key = "figlet/" + font + "/" + format + "/" + width + "/" + align + "/" + text;
+                return new Render(key, format, new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        FigletModel model = getFigletFont(font);
+                        return format.renderText(width > 0 ? model.convert(text, width, align) : model.convert(text));
+                    }
+                });
+            }
+        });
+        server.createContext("/bigtext", new RenderHandler("bigtext") {
+            @Override
+            Render prepare(HttpExchange exchange, Map<String, String> query) throws IOException {
+                final String text = text(query);
+                final int font = intValue(query, "font", 0);
+                if (font < 0 || font >= bigFonts.getSize()) {
+                    throw new IllegalArgumentException("Unknown font " + font);
+                }
+                final OutputFormat format = format(query);
+                final int width = width(query);
+                final Alignment align = align(query);
+                String key = "bigtext/" + font + "/" + format + "/" + width + "/" + align + "/" + text;
+                return new Render(key, format, new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return format.renderText(width > 0
+                                ? bigFonts.convert(text, font, width, align)
+                                : bigFonts.convert(text, font));
+                    }
+                });
+            }
+        });
+        server.createContext("/image", new RenderHandler("image") {
+            @Override
+            Render prepare(HttpExchange exchange, Map<String, String> query) throws IOException {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    throw new HttpException(405, "POST the image");
+                }
+                final ColorType colorType = query.containsKey("color")
+                        ? ColorType.valueOf(query.get("color").toUpperCase(Locale.US)) : ColorType.ANSI_COLOR;
+                final int columns = intValue(query, "columns", 120);
+                if (columns < 1 || columns > MAX_COLUMNS) {
+                    throw new IllegalArgumentException("columns must be between 1 and " + MAX_COLUMNS);
+                }
+                final OutputFormat format = format(query);
+                final byte[] data = readBody(exchange);
+                String key = "image/" + colorType + "/" + columns + "/" + format + "/" + digest(data);
+                return new Render(key, format, new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return format.renderImage(convertImage(data, columns, colorType));
+                    }
+                });
+            }
+        });
+        server.createContext("/stats", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    byte[] body = getStatistics().toString(2).getBytes("UTF-8");
+                    send(exchange, 200, "application/json; charset=utf-8", body);
+                } catch (JSONException e) {
+                    e.printStackTrace();
+                    send(exchange, 500, "text/plain; charset=utf-8", e.toString().getBytes("UTF-8"));
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    public void stop() {
+        if (server == null) return;
+        server.stop(1);
+        renderPool.shutdownNow();
+        httpPool.shutdownNow();
+        server = null;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public RenderCache getCache() {
+        return cache;
+    }
+
+    public JSONObject getStatistics() throws JSONException {
+        JSONObject json = new JSONObject();
+        JSONObject endpoints = new JSONObject();
+        synchronized (latencies) {
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                endpoints.put(entry.getKey(), entry.getValue().toJson());
+            }
+        }
+        json.put("endpoints", endpoints);
+        JSONObject cacheJson = new JSONObject();
+        cacheJson.put("entries", cache.size());
+        cacheJson.put("bytes", cache.getBytes());
+        cacheJson.put("max_bytes", cache.getMaxBytes());
+        cacheJson.put("hits", cache.getHits());
+        cacheJson.put("misses", cache.getMisses());
+        cacheJson.put("evictions", cache.getEvictions());
+        json.put("cache", cacheJson);
+        json.put("coalesced", coalesced.get());
+        json.put("rejected", rejected.get());
+        json.put("in_flight", inFlight.size());
+        json.put("render_active", renderPool.getActiveCount());
+        json.put("render_queued", renderPool.getQueue().size());
+        return json;
+    }
+
+    private FigletModel getFigletFont(String name) throws IOException {
+        FigletModel font = figletFonts.get(name);
+        if (font == null) {
+            InputStream in = loader.open("fonts/" + name);
+            try {
+                font = new FigletModel(in);
+            } finally {
+                in.close();
+            }
+            FigletModel other = figletFonts.putIfAbsent(name, font);
+            if (other != null) font = other;
+        }
+        return font;
+    }
+
+    private static AsciiConverter.Result convertImage(byte[] data, int columns, ColorType colorType)
+            throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        if (image == null) {
+            throw new IllegalArgumentException("Unsupported image format");
+        }
+        int rows = Math.max(1, Math.round(columns * CHAR_ASPECT * image.getHeight() / image.getWidth()));
+        return new AsciiConverter().computeResultForBitmap(
+                new BufferedImagePixelSource(image), rows, columns, colorType);
+    }
+
+    /**
+     * Returns the cached output, joins a render of the same key that is already running or
+     * starts a new one.
+     */
+    private Outcome render(final Render render) throws Exception {
+        byte[] cached = cache.get(render.key);
+        if (cached != null) {
+            return new Outcome(cached, "HIT");
+        }
+        final FutureTask<byte[]> task = new FutureTask<>(render.callable);
+        FutureTask<byte[]> running = inFlight.putIfAbsent(render.key, task);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return new Outcome(running.get(), "COALESCED");
+        }
+        try {
+            renderPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    task.run();
+                    try {
+                        // cache before leaving the in flight map, so a request never misses both
+                        cache.put(render.key, task.get());
+                    } catch (Exception ignored) {
+                        // reported to the waiting requests
+                    } finally {
+                        inFlight.remove(render.key, task);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(render.key, task);
+            task.cancel(false);
+            rejected.incrementAndGet();
+            throw e;
+        }
+        return new Outcome(task.get(), "MISS");
+    }
+
+    private static String text(Map<String, String> query) {
+        String text = query.get("text");
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Missing text");
+        }
+        if (text.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("text is longer than " + MAX_TEXT_LENGTH);
+        }
+        return text;
+    }
+
+    private static OutputFormat format(Map<String, String> query) {
+        return query.containsKey("format") ? OutputFormat.parse(query.get("format")) : OutputFormat.TEXT;
+    }
+
+    /**
+     * @return column width to wrap text to, 0 for no wrapping
+     */
+    private static int width(Map<String, String> query) {
+        int width = intValue(query, "width", 0);
+        if (width < 0 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("width must be between 0 and " + MAX_WIDTH);
+        }
+        return width;
+    }
+
+    private static Alignment align(Map<String, String> query) {
+        String align = query.get("align");
+        if (align == null) return Alignment.LEFT;
+        try {
+            return Alignment.valueOf(align.toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("align must be left, center or right");
+        }
+    }
+
+    private static int intValue(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            if (out.size() > options.maxUploadBytes) {
+                throw new HttpException(413, "Image is larger than " + options.maxUploadBytes + " bytes");
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(data);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format(Locale.US, "%02x", b & 0xff));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", (message + "\n").getBytes("UTF-8"));
+    }
+
+    private static class Render {
+        final String key;
+        final OutputFormat format;
+        final Callable<byte[]> callable;
+
+        Render(String key, OutputFormat format, Callable<byte[]> callable) {
+            this.key = key;
+            this.format = format;
+            this.callable = callable;
+        }
+    }
+
+    private static class Outcome {
+        final byte[] body;
+        final String cacheStatus;
+
+        Outcome(byte[] body, String cacheStatus) {
+            this.body = body;
+            this.cacheStatus = cacheStatus;
+        }
+    }
+
+    private static class HttpException extends IOException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        HttpException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private abstract class RenderHandler implements HttpHandler {
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        RenderHandler(String endpoint) {
+            synchronized (latencies) {
+                latencies.put(endpoint, latency);
+            }
+        }
+
+        abstract Render prepare(HttpExchange exchange, Map<String, String> query) throws IOException;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            try {
+                Render render = prepare(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+                Outcome outcome = render(render);
+                exchange.getResponseHeaders().set("X-Cache", outcome.cacheStatus);
+                send(exchange, 200, render.format.contentType, outcome.body);
+            } catch (HttpException e) {
+                sendError(exchange, e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (RejectedExecutionException | CancellationException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 429, "Too many requests");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IllegalArgumentException || cause instanceof UnsupportedOperationException) {
+                    sendError(exchange, 400, String.valueOf(cause.getMessage()));
+                } else {
+                    cause.printStackTrace();
+                    sendError(exchange, 500, cause.toString());
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendError(exchange, 500, e.toString());
+            } finally {
+                latency.record(System.nanoTime() - start);
+                exchange.close();
+            }
+        }
+    }
+
+    public static class Options {
+        int port = 8080;
+        File assets = new File("app/src/main/assets");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 64;
+        long cacheBytes = 64L * 1024 * 1024;
+        int maxUploadBytes = 8 * 1024 * 1024;
+        boolean help;
+
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h":
+                    case "--help":
+                        options.help = true;
+                        return options;
+                    case "--port":
+                        options.port = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--assets":
+                        options.assets = new File(value(args, ++i, arg));
+                        break;
+                    case "--threads":
+                        options.threads = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--queue":
+                        options.queue = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--cache-mb":
+                        options.cacheBytes = Math.max(0, Long.parseLong(value(args, ++i, arg))) * 1024 * 1024;
+                        break;
+                    case "--max-upload-mb":
+                        // the body is buffered in one array, which holds less than 2048 MB
+                        long uploadMb = Math.max(1, Math.min(Long.parseLong(value(args, ++i, arg)), 2047));
+                        options.maxUploadBytes = (int) (uploadMb * 1024 * 1024);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.server;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsciiServerTest {
+    private AsciiServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        AsciiServer.Options options = AsciiServer.Options.parse(new String[]{"--port", "0", "--threads", "2"});
+        options.assets = new File("../app/src/main/assets");
+        server = new AsciiServer(options);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private HttpURLConnection get(String path) throws Exception {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + path);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private String read(HttpURLConnection connection) throws Exception {
+        InputStream in = connection.getInputStream();
+        try {
+            return IOUtils.toString(in, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void figletIsCached() throws Exception {
+        String path = "/figlet?font=standard.font&text=" + URLEncoder.encode("hello world", "UTF-8");
+        HttpURLConnection first = get(path);
+        String body = read(first);
+        assertEquals("MISS", first.getHeaderField("X-Cache"));
+        assertTrue(body.contains("_"));
+
+        HttpURLConnection second = get(path);
+        assertEquals(body, read(second));
+        assertEquals("HIT", second.getHeaderField("X-Cache"));
+        assertEquals(1, server.getCache().getHits());
+
+        JSONObject stats = new JSONObject(read(get("/stats")));
+        assertEquals(2, stats.getJSONObject("endpoints").getJSONObject("figlet").getInt("count"));
+    }
+
+    @Test
+    public void badRequests() throws Exception {
+        assertEquals(400, get("/figlet?font=../secret&text=a").getResponseCode());
+        assertEquals(400, get("/bigtext?font=-1&text=a").getResponseCode());
+        assertEquals(400, get("/figlet").getResponseCode());
+        assertEquals(400, get("/figlet?text=a&align=justify").getResponseCode());
+        assertEquals(405, get("/image").getResponseCode());
+    }
+
+    @Test
+    public void uploadLimitDoesNotOverflow() throws Exception {
+        for (String mb : new String[]{"2048", "4096", "99999999999"}) {
+            AsciiServer.Options options = AsciiServer.Options.parse(new String[]{"--max-upload-mb", mb});
+            assertEquals(2047 * 1024 * 1024, options.maxUploadBytes);
+        }
+        assertEquals(1024 * 1024, AsciiServer.Options.parse(new String[]{"--max-upload-mb", "0"}).maxUploadBytes);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *     Copyright (C) 2018 Tran Le Duy
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.duy.ascii.art.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RenderCacheTest {
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        RenderCache cache = new RenderCache(3 * 1200);
+        cache.put("a", new byte[1000]);
+        cache.put("b", new byte[1000]);
+        cache.put("c", new byte[1000]);
+        assertNotNull(cache.get("a"));
+        cache.put("d", new byte[1000]);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("d"));
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+    }
+
+    @Test
+    public void skipsValuesLargerThanTheCache() {
+        RenderCache cache = new RenderCache(100);
+        cache.put("a", new byte[1000]);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+}